@@ -0,0 +1,111 @@
+package io.upload;
+
+import com.dbtojson.ModuleResult;
+import com.dbtojson.ModuleStats;
+import java.time.Instant;
+
+/**
+ * One run of a dbtojson module inside the service. Progress counters are read live from the running module.
+ */
+public class DbToJsonJob {
+
+    public enum Status {
+        QUEUED, RUNNING, SUCCEEDED, FAILED
+    }
+
+    private final String id;
+    private final String module;
+    private final Instant submittedAt;
+    private final ModuleStats stats;
+    private volatile Status status = Status.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    DbToJsonJob(String id, String module, ModuleStats stats) {
+        this.id = id;
+        this.module = module;
+        this.stats = stats;
+        this.submittedAt = Instant.now();
+    }
+
+    void started() {
+        startedAt = Instant.now();
+        status = Status.RUNNING;
+    }
+
+    void finished(ModuleResult result) {
+        error = result.getError() != null ? String.valueOf(result.getError().getMessage()) : null;
+        finishedAt = Instant.now();
+        status = result.isSuccess() ? Status.SUCCEEDED : Status.FAILED;
+    }
+
+    void failed(Throwable e) {
+        error = String.valueOf(e.getMessage());
+        finishedAt = Instant.now();
+        status = Status.FAILED;
+    }
+
+    ModuleStats stats() {
+        return stats;
+    }
+
+    boolean isFinished() {
+        return status == Status.SUCCEEDED || status == Status.FAILED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getModule() {
+        return module;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    /**
+     * @return The run time so far, or of the whole run once finished; 0 while queued.
+     */
+    public long getDurationMillis() {
+        Instant start = startedAt;
+        if (start == null) {
+            return 0;
+        }
+        Instant end = finishedAt;
+        return (end != null ? end : Instant.now()).toEpochMilli() - start.toEpochMilli();
+    }
+
+    public long getRowsRead() {
+        return stats.getRowsRead();
+    }
+
+    /**
+     * @return The documents written; the processor adds them per worker once its writes are committed.
+     */
+    public long getRowsWritten() {
+        return stats.getRowsWritten();
+    }
+
+    public long getRowsSkipped() {
+        return stats.getRowsSkipped();
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,36 @@
+package io.upload;
+
+import java.util.List;
+import org.eclipse.microprofile.graphql.Description;
+import org.eclipse.microprofile.graphql.GraphQLApi;
+import org.eclipse.microprofile.graphql.Mutation;
+import org.eclipse.microprofile.graphql.NonNull;
+import org.eclipse.microprofile.graphql.Query;
+
+@GraphQLApi
+public class DbToJsonJobGraphQLResource {
+
+    private final DbToJsonJobService jobService;
+
+    public DbToJsonJobGraphQLResource(DbToJsonJobService jobService) {
+        this.jobService = jobService;
+    }
+
+    @Mutation
+    @Description("Queue a dbtojson run of a module; fails if the module already has a queued or running job")
+    public DbToJsonJob startDbToJsonJob(@NonNull String module) {
+        return jobService.start(module);
+    }
+
+    @Query
+    @Description("A dbtojson job with its status and progress")
+    public DbToJsonJob dbToJsonJob(@NonNull String id) {
+        return jobService.get(id);
+    }
+
+    @Query
+    @Description("All known dbtojson jobs, most recent first")
+    public List<DbToJsonJob> dbToJsonJobs() {
+        return jobService.list();
+    }
+}
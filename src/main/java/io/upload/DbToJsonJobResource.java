@@ -0,0 +1,68 @@
+package io.upload;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
+import java.util.List;
+
+/**
+ * REST API for dbtojson jobs: start a module run and poll its status and progress.
+ */
+@Path("/dbtojson")
+@Produces(MediaType.APPLICATION_JSON)
+public class DbToJsonJobResource {
+
+    @Inject
+    DbToJsonJobService jobService;
+
+    /**
+     * Queues a run of the module.
+     * @return 202 with the job and its status URL, 404 for an unknown module, 409 if the module already has a job.
+     */
+    @POST
+    @Path("/modules/{module}/jobs")
+    public Response startJob(@PathParam("module") String module, @Context UriInfo uriInfo) {
+        try {
+            DbToJsonJob job = jobService.start(module);
+            return Response.accepted(job)
+                    .location(uriInfo.getBaseUriBuilder().path("dbtojson/jobs").path(job.getId()).build())
+                    .build();
+        } catch (DbToJsonJobService.UnknownModuleException e) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity(e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        } catch (DbToJsonJobService.ModuleBusyException e) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(e.getMessage())
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        }
+    }
+
+    @GET
+    @Path("/jobs")
+    public List<DbToJsonJob> listJobs() {
+        return jobService.list();
+    }
+
+    @GET
+    @Path("/jobs/{id}")
+    public Response getJob(@PathParam("id") String id) {
+        DbToJsonJob job = jobService.get(id);
+        if (job == null) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity("Job not found: " + id)
+                    .type(MediaType.TEXT_PLAIN)
+                    .build();
+        }
+        return Response.ok(job).build();
+    }
+}
@@ -0,0 +1,191 @@
+package io.upload;
+
+import com.dbtojson.DataProcessor;
+import com.dbtojson.ModuleConfig;
+import com.dbtojson.ModuleResult;
+import com.dbtojson.ModuleStats;
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.agroal.DataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Runs dbtojson modules as asynchronous jobs on the service's Agroal connection pool, so a run does not pay
+ * for a JVM start, a new connection pool and Jackson warm-up.
+ * <p>
+ * Every job runs on a virtual thread; at most dbtojson.max-concurrent-jobs run at the same time and further
+ * jobs wait in QUEUED. A module has at most one queued or running job: starting another is rejected.
+ * The module settings are read from dbtojson.config when a job is started, so edits apply to the next job.
+ */
+@ApplicationScoped
+public class DbToJsonJobService {
+
+    /** Finished jobs kept for status queries; the oldest are dropped first. */
+    private static final int FINISHED_JOBS_KEPT = 100;
+
+    @Inject
+    @DataSource("dbtojson")
+    AgroalDataSource dataSource;
+
+    @ConfigProperty(name = "dbtojson.config", defaultValue = "config.properties")
+    String configLocation;
+
+    @ConfigProperty(name = "dbtojson.max-concurrent-jobs", defaultValue = "3")
+    int maxConcurrentJobs;
+
+    private final Map<String, DbToJsonJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, DbToJsonJob> activeByModule = new ConcurrentHashMap<>();
+    private ExecutorService executor;
+    private Semaphore runSlots;
+
+    @PostConstruct
+    void init() {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        runSlots = new Semaphore(Math.max(1, maxConcurrentJobs), true);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queues a run of the module.
+     * @param module The module name as listed in the 'modules' key.
+     * @return The queued job.
+     * @throws UnknownModuleException If the module is not configured or its configuration is incomplete or invalid.
+     * @throws ModuleBusyException If the module already has a queued or running job.
+     */
+    public DbToJsonJob start(String module) {
+        ModuleConfig moduleConfig = moduleConfig(module);
+        DbToJsonJob job = new DbToJsonJob(UUID.randomUUID().toString(), moduleConfig.getName(),
+                new ModuleStats(moduleConfig.getLogSampleRate()));
+        DbToJsonJob active = activeByModule.putIfAbsent(moduleConfig.getName(), job);
+        if (active != null) {
+            throw new ModuleBusyException("Module '" + moduleConfig.getName() + "' already has job " + active.getId()
+                    + " in state " + active.getStatus() + ".");
+        }
+        jobs.put(job.getId(), job);
+        evictFinishedJobs();
+        try {
+            executor.submit(() -> run(job, moduleConfig));
+        } catch (RejectedExecutionException e) {
+            // Shutting down; the job never runs, so it must not keep the module busy
+            jobs.remove(job.getId(), job);
+            activeByModule.remove(job.getModule(), job);
+            throw e;
+        }
+        return job;
+    }
+
+    /**
+     * @return The job, or null if there is no job with this id.
+     */
+    public DbToJsonJob get(String id) {
+        return jobs.get(id);
+    }
+
+    /**
+     * @return All known jobs, most recently submitted first.
+     */
+    public List<DbToJsonJob> list() {
+        List<DbToJsonJob> list = new ArrayList<>(jobs.values());
+        list.sort(Comparator.comparing(DbToJsonJob::getSubmittedAt).reversed());
+        return list;
+    }
+
+    private void run(DbToJsonJob job, ModuleConfig moduleConfig) {
+        try {
+            runSlots.acquire();
+            try {
+                job.started();
+                ModuleResult result = DataProcessor.runModule(dataSource, moduleConfig, job.stats());
+                job.finished(result);
+            } finally {
+                runSlots.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.failed(e);
+        } catch (RuntimeException | Error e) {
+            job.failed(e);
+            throw e;
+        } finally {
+            activeByModule.remove(job.getModule(), job);
+        }
+    }
+
+    private ModuleConfig moduleConfig(String module) {
+        Properties config;
+        try {
+            config = DataProcessor.readConfig(configLocation);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read the dbtojson configuration " + configLocation, e);
+        }
+        boolean listed = Arrays.stream(config.getProperty("modules", "").split(","))
+                .map(String::trim)
+                .anyMatch(module::equals);
+        if (!listed) {
+            throw new UnknownModuleException("Module '" + module + "' is not configured.");
+        }
+        ModuleConfig moduleConfig;
+        try {
+            moduleConfig = ModuleConfig.from(config, module);
+        } catch (IllegalArgumentException e) {
+            throw new UnknownModuleException("Module '" + module + "' has an invalid configuration: " + e.getMessage());
+        }
+        if (!moduleConfig.isComplete()) {
+            throw new UnknownModuleException("Module '" + module + "' has an incomplete configuration.");
+        }
+        return moduleConfig;
+    }
+
+    private void evictFinishedJobs() {
+        List<DbToJsonJob> finished = new ArrayList<>();
+        for (DbToJsonJob job : jobs.values()) {
+            if (job.isFinished()) {
+                finished.add(job);
+            }
+        }
+        if (finished.size() > FINISHED_JOBS_KEPT) {
+            finished.sort(Comparator.comparing(DbToJsonJob::getSubmittedAt));
+            for (DbToJsonJob job : finished.subList(0, finished.size() - FINISHED_JOBS_KEPT)) {
+                jobs.remove(job.getId());
+            }
+        }
+    }
+
+    /**
+     * The module already has a queued or running job.
+     */
+    public static class ModuleBusyException extends RuntimeException {
+        public ModuleBusyException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * The module is not listed in the configuration or cannot be run.
+     */
+    public static class UnknownModuleException extends RuntimeException {
+        public UnknownModuleException(String message) {
+            super(message);
+        }
+    }
+}
@@ -6,6 +6,23 @@ public class AlertActionController {
     @Inject
     AlertActionService alertActionService;
 
+    /**
+     * The alert's current state, with the version an action on it must send.
+     */
+    @GET
+    @Path("/{alertId}")
+    public Response getAlertState(@PathParam("alertId") Long alertId) {
+        try {
+            return Response.ok(alertActionService.getAlertState(alertId)).build();
+        } catch (NotFoundException e) {
+            return Response.status(Response.Status.NOT_FOUND).entity(e.getMessage()).build();
+        }
+    }
+
+    /**
+     * Applies an action to the alert at the version the analyst loaded, from GET /alertAction/{alertId}.
+     * The version is required: without it the response is 400, and if the alert has changed since it is 409.
+     */
     @PUT
     @Path("/{alertId}/{action}/{bankId}/{assignedTo}/{assignedRole}")
     public Response performAlertAction(
@@ -15,15 +32,38 @@ public class AlertActionController {
             @PathParam("assignedTo") String assignedTo,
             @PathParam("assignedRole") String assignedRole,
             @QueryParam("comments") String comments,
-            @QueryParam("riskManagementAction") String riskManagementAction
+            @QueryParam("riskManagementAction") String riskManagementAction,
+            @QueryParam("version") Long version
     ) {
         try {
-            alertActionService.processAlertAction(alertId, action, bankId, assignedTo, assignedRole, comments, riskManagementAction);
+            alertActionService.processAlertAction(alertId, action, bankId, assignedTo, assignedRole, comments, riskManagementAction, version);
             return Response.ok("Action '" + action + "' performed successfully.").build();
         } catch (IllegalArgumentException e) {
             return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
         } catch (NotFoundException e) {
             return Response.status(Response.Status.NOT_FOUND).entity(e.getMessage()).build();
+        } catch (AlertActionService.AlertConflictException e) {
+            return Response.status(Response.Status.CONFLICT).entity(e.getMessage()).build();
+        } catch (RuleConfigCache.RuleConfigUnavailableException e) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE).entity(e.getMessage()).build();
+        } catch (Exception e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity("Unexpected error occurred.").build();
+        }
+    }
+
+    /**
+     * Applies one action to a list of alerts, up to AlertActionService.MAX_BULK_ALERTS, and returns the outcome
+     * for each alert ID; alerts that do not exist are reported as NOT_FOUND instead of failing the request.
+     */
+    @PUT
+    @Path("/bulk")
+    public Response performBulkAlertAction(BulkAlertActionRequest request) {
+        try {
+            return Response.ok(alertActionService.processBulkAlertAction(request)).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        } catch (RuleConfigCache.RuleConfigUnavailableException e) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE).entity(e.getMessage()).build();
         } catch (Exception e) {
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity("Unexpected error occurred.").build();
         }
@@ -45,37 +85,169 @@ public class AlertActionService {
     @Inject
     AlertAuditHistoryRepository auditRepo;
 
+    @Inject
+    RuleConfigCache ruleConfigCache;
+
+    /** Alerts accepted by one bulk request. */
+    public static final int MAX_BULK_ALERTS = 10_000;
+
+    /** Alert IDs per bulk UPDATE, and alerts whose inserts are flushed together. */
+    private static final int BULK_CHUNK_SIZE = 500;
+
+    private static final List<String> DUE_DATE_ACTIONS = List.of("Review Needed", "Aligned", "Not-Aligned", "Refer Back");
+
+    /**
+     * Applies an action to an alert in one transaction, without reading it FOR UPDATE. The alert is updated with
+     * UPDATE ... WHERE id = ? AND version = ?, which also increments the version, so the action only applies to the
+     * version the analyst acted on: if another action changed the alert since, before this request or while it
+     * ran, no row is updated and the action is rejected instead of overwriting the other change. The row lock the
+     * UPDATE takes is held until the transaction commits. Alerts whose version is NULL, from before the column was
+     * added, count as version 0.
+     *
+     * @param expectedVersion The version of the alert the analyst acted on, as returned by getAlertState.
+     * @throws IllegalArgumentException If a required parameter, the version included, is missing.
+     * @throws AlertConflictException If the alert is not at expectedVersion.
+     */
+    @Transactional
     public void processAlertAction(Long alertId, String action, String bankId, String assignedTo,
-                                   String assignedRole, String comments, String riskManagementAction) {
+                                   String assignedRole, String comments, String riskManagementAction,
+                                   Long expectedVersion) {
 
         if (Stream.of(alertId, action, assignedTo, assignedRole, comments).anyMatch(Objects::isNull)) {
             throw new IllegalArgumentException("Missing required parameters.");
         }
-
-        AlertData alert = dashboardRepo.findById(alertId);
-        if (alert == null) throw new NotFoundException("Alert not found for ID: " + alertId);
+        if (expectedVersion == null) {
+            throw new IllegalArgumentException("Missing version: send the version of the alert the action was chosen on.");
+        }
 
         LocalDateTime now = LocalDateTime.now();
+        String status = statusAfter(action);
+        boolean closed = "Closed".equals(status);
+        boolean setDueDate = DUE_DATE_ACTIONS.contains(action);
+
+        String update = "lastActionTaken = :action, lastActionDate = :now, alertStatus = :status,"
+                + " assignedRole = :assignedRole, assignedTo = :assignedTo, version = coalesce(version, 0L) + 1"
+                + (setDueDate ? ", dueDate = :dueDate" : "")
+                + " where id = :id and coalesce(version, 0L) = :version";
+        Parameters parameters = Parameters.with("action", action).and("now", now).and("status", status)
+                .and("assignedRole", closed ? null : assignedRole)
+                .and("assignedTo", closed ? null : assignedTo)
+                .and("id", alertId)
+                .and("version", expectedVersion);
+
+        // Only the version and rule are needed, not the managed entity
+        Object[] current = dashboardRepo.getEntityManager()
+                .createQuery("select coalesce(a.version, 0L), a.ruleId from AlertData a where a.id = :id", Object[].class)
+                .setParameter("id", alertId)
+                .getResultStream()
+                .findFirst()
+                .orElseThrow(() -> new NotFoundException("Alert not found for ID: " + alertId));
+        Long version = (Long) current[0];
+        if (!expectedVersion.equals(version)) {
+            throw new AlertConflictException("Alert " + alertId + " was changed by another action (version "
+                    + version + ", expected " + expectedVersion + "). Reload it and try again.");
+        }
+        if (setDueDate) {
+            parameters.and("dueDate", now.plusDays(ruleConfigCache.getDueInDays((Long) current[1])));
+        }
+        if (dashboardRepo.update(update, parameters) == 0) {
+            // Another action committed between the read and the update
+            throw new AlertConflictException("Alert " + alertId + " was changed by another action. Reload it and try again.");
+        }
+
+        recordAction(alertId, action, assignedTo, assignedRole, comments, riskManagementAction, now);
+    }
+
+    /**
+     * Applies one action to many alerts in one transaction. The alerts are not loaded: each chunk of IDs is
+     * updated with one set-based UPDATE per due date (alerts of rules with the same due-in-days share one), and
+     * the chunk's action, stage decision and audit rows are flushed as JDBC batches before the persistence context
+     * is cleared for the next chunk.
+     */
+    @Transactional
+    public BulkAlertActionResult processBulkAlertAction(BulkAlertActionRequest request) {
+        if (request == null || request.getAlertIds() == null || request.getAlertIds().isEmpty()
+                || Stream.of(request.getAction(), request.getAssignedTo(), request.getAssignedRole(), request.getComments()).anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("Missing required parameters.");
+        }
+        List<Long> alertIds = request.getAlertIds().stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        if (alertIds.size() > MAX_BULK_ALERTS) {
+            throw new IllegalArgumentException("At most " + MAX_BULK_ALERTS + " alerts can be updated at once.");
+        }
 
-        alert.setLastActionTaken(action);
-        alert.setLastActionDate(now);
-        alert.setAlertStatus("Closed".equalsIgnoreCase(action) || "Acknowledge".equalsIgnoreCase(action) ? "Closed" : "In Progress");
+        String action = request.getAction();
+        LocalDateTime now = LocalDateTime.now();
+        String status = statusAfter(action);
+        boolean closed = "Closed".equals(status);
 
-        if ("Closed".equalsIgnoreCase(alert.getAlertStatus())) {
-            alert.setAssignedRole(null);
-            alert.setAssignedTo(null);
-        } else {
-            alert.setAssignedRole(assignedRole);
-            alert.setAssignedTo(assignedTo);
+        String update = "lastActionTaken = :action, lastActionDate = :now, alertStatus = :status,"
+                + " assignedRole = :assignedRole, assignedTo = :assignedTo, version = coalesce(version, 0L) + 1";
+        Parameters parameters = Parameters.with("action", action).and("now", now).and("status", status)
+                .and("assignedRole", closed ? null : request.getAssignedRole())
+                .and("assignedTo", closed ? null : request.getAssignedTo());
+        boolean setDueDate = DUE_DATE_ACTIONS.contains(action);
+        if (setDueDate) {
+            update += ", dueDate = :dueDate";
         }
 
-        // Update due date only for certain actions
-        if (List.of("Review Needed", "Aligned", "Not-Aligned", "Refer Back").contains(action)) {
-            alert.setDueDate(now.plusDays(30)); // replace 30 with dueInDays from rule config if needed
+        EntityManager em = dashboardRepo.getEntityManager();
+        BulkAlertActionResult result = new BulkAlertActionResult(action);
+        for (int from = 0; from < alertIds.size(); from += BULK_CHUNK_SIZE) {
+            List<Long> chunk = alertIds.subList(from, Math.min(from + BULK_CHUNK_SIZE, alertIds.size()));
+            Set<Long> found = new HashSet<>();
+            Map<Integer, List<Long>> byDueInDays = new HashMap<>();
+            for (Object[] alert : em.createQuery("select a.id, a.ruleId from AlertData a where a.id in :ids", Object[].class)
+                    .setParameter("ids", chunk)
+                    .getResultList()) {
+                Long alertId = (Long) alert[0];
+                found.add(alertId);
+                Integer dueInDays = setDueDate ? ruleConfigCache.getDueInDays((Long) alert[1]) : null;
+                byDueInDays.computeIfAbsent(dueInDays, days -> new ArrayList<>()).add(alertId);
+            }
+            for (Map.Entry<Integer, List<Long>> group : byDueInDays.entrySet()) {
+                if (setDueDate) {
+                    parameters.and("dueDate", now.plusDays(group.getKey()));
+                }
+                dashboardRepo.update(update + " where id in :ids", parameters.and("ids", group.getValue()));
+            }
+
+            for (Long alertId : chunk) {
+                if (found.contains(alertId)) {
+                    recordAction(alertId, action, request.getAssignedTo(), request.getAssignedRole(),
+                            request.getComments(), request.getRiskManagementAction(), now);
+                    result.add(alertId, BulkAlertActionResult.UPDATED);
+                } else {
+                    result.add(alertId, BulkAlertActionResult.NOT_FOUND);
+                }
+            }
+            em.flush();
+            em.clear();
         }
+        return result;
+    }
 
-        dashboardRepo.persist(alert);
+    /**
+     * @return The alert's current state; its version is the one an action on the alert must send.
+     */
+    public AlertState getAlertState(Long alertId) {
+        return dashboardRepo.getEntityManager()
+                .createQuery("select new AlertState(a.id, a.alertStatus, a.assignedTo, a.assignedRole, a.lastActionTaken,"
+                        + " a.lastActionDate, a.dueDate, coalesce(a.version, 0L)) from AlertData a where a.id = :id", AlertState.class)
+                .setParameter("id", alertId)
+                .getResultStream()
+                .findFirst()
+                .orElseThrow(() -> new NotFoundException("Alert not found for ID: " + alertId));
+    }
 
+    private static String statusAfter(String action) {
+        return "Closed".equalsIgnoreCase(action) || "Acknowledge".equalsIgnoreCase(action) ? "Closed" : "In Progress";
+    }
+
+    /**
+     * Persists the action, stage decision and audit rows of an action on one alert.
+     */
+    private void recordAction(Long alertId, String action, String assignedTo, String assignedRole, String comments,
+                              String riskManagementAction, LocalDateTime now) {
         AlertAction alertAction = new AlertAction(alertId, 1L, assignedRole, assignedTo, action, now, comments, riskManagementAction);
         actionRepo.persist(alertAction);
 
@@ -85,6 +257,115 @@ public class AlertActionService {
         AlertAuditHistory audit = new AlertAuditHistory(alertId, 1, assignedRole, "user123", action, assignedRole, assignedTo, now, comments, riskManagementAction);
         auditRepo.persist(audit);
     }
+
+    /**
+     * The alert was changed by another action since the analyst loaded it, or while this one was applied.
+     */
+    public static class AlertConflictException extends RuntimeException {
+        public AlertConflictException(String message) {
+            super(message);
+        }
+    }
+}
+
+/**
+ * An alert as the analyst sees it; an action on the alert sends its version back.
+ */
+public class AlertState {
+
+    private final Long alertId;
+    private final String alertStatus;
+    private final String assignedTo;
+    private final String assignedRole;
+    private final String lastActionTaken;
+    private final LocalDateTime lastActionDate;
+    private final LocalDateTime dueDate;
+    private final Long version;
+
+    public AlertState(Long alertId, String alertStatus, String assignedTo, String assignedRole, String lastActionTaken,
+                      LocalDateTime lastActionDate, LocalDateTime dueDate, Long version) {
+        this.alertId = alertId;
+        this.alertStatus = alertStatus;
+        this.assignedTo = assignedTo;
+        this.assignedRole = assignedRole;
+        this.lastActionTaken = lastActionTaken;
+        this.lastActionDate = lastActionDate;
+        this.dueDate = dueDate;
+        this.version = version;
+    }
+
+    public Long getAlertId() { return alertId; }
+    public String getAlertStatus() { return alertStatus; }
+    public String getAssignedTo() { return assignedTo; }
+    public String getAssignedRole() { return assignedRole; }
+    public String getLastActionTaken() { return lastActionTaken; }
+    public LocalDateTime getLastActionDate() { return lastActionDate; }
+    public LocalDateTime getDueDate() { return dueDate; }
+    public Long getVersion() { return version; }
+}
+
+public class BulkAlertActionRequest {
+
+    private List<Long> alertIds;
+    private String action;
+    private String bankId;
+    private String assignedTo;
+    private String assignedRole;
+    private String comments;
+    private String riskManagementAction;
+
+    public List<Long> getAlertIds() { return alertIds; }
+    public void setAlertIds(List<Long> alertIds) { this.alertIds = alertIds; }
+    public String getAction() { return action; }
+    public void setAction(String action) { this.action = action; }
+    public String getBankId() { return bankId; }
+    public void setBankId(String bankId) { this.bankId = bankId; }
+    public String getAssignedTo() { return assignedTo; }
+    public void setAssignedTo(String assignedTo) { this.assignedTo = assignedTo; }
+    public String getAssignedRole() { return assignedRole; }
+    public void setAssignedRole(String assignedRole) { this.assignedRole = assignedRole; }
+    public String getComments() { return comments; }
+    public void setComments(String comments) { this.comments = comments; }
+    public String getRiskManagementAction() { return riskManagementAction; }
+    public void setRiskManagementAction(String riskManagementAction) { this.riskManagementAction = riskManagementAction; }
+}
+
+public class BulkAlertActionResult {
+
+    public static final String UPDATED = "UPDATED";
+    public static final String NOT_FOUND = "NOT_FOUND";
+
+    private final String action;
+    private int updated;
+    private int notFound;
+    private final List<AlertResult> results = new ArrayList<>();
+
+    public BulkAlertActionResult(String action) {
+        this.action = action;
+    }
+
+    void add(Long alertId, String outcome) {
+        if (UPDATED.equals(outcome)) updated++; else notFound++;
+        results.add(new AlertResult(alertId, outcome));
+    }
+
+    public String getAction() { return action; }
+    public int getUpdated() { return updated; }
+    public int getNotFound() { return notFound; }
+    public List<AlertResult> getResults() { return results; }
+
+    public static class AlertResult {
+        private final Long alertId;
+        private final String outcome;
+
+        AlertResult(Long alertId, String outcome) {
+            this.alertId = alertId;
+            this.outcome = outcome;
+        }
+
+        public Long getAlertId() { return alertId; }
+        public String getOutcome() { return outcome; }
+    }
 }
 
 
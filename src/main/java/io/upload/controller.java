@@ -2,6 +2,7 @@ package com.yourapp.controller;
 
 import com.yourapp.dto.AlertActionRequest;
 import com.yourapp.service.AlertActionService;
+import com.yourapp.service.RuleConfigCache;
 import jakarta.inject.Inject;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
@@ -16,6 +17,28 @@ public class AlertActionController {
     @Inject
     AlertActionService alertActionService;
 
+    @Inject
+    RuleConfigCache ruleConfigCache;
+
+    /**
+     * The alert's current state, with the version an action on it must send.
+     */
+    @GET
+    @Path("/{alertId}")
+    public Response getAlertState(@PathParam("alertId") Long alertId) {
+        try {
+            return Response.ok(alertActionService.getAlertState(alertId)).build();
+        } catch (NotFoundException e) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity("Alert not found: " + e.getMessage())
+                    .build();
+        }
+    }
+
+    /**
+     * Applies an action to the alert at the version the analyst loaded, from GET /alerts/{alertId}.
+     * The request's version is required: without it the response is 400, and if the alert has changed since it is 409.
+     */
     @PUT
     @Path("/{alertId}/actions")
     public Response performAlertAction(
@@ -32,12 +55,26 @@ public class AlertActionController {
             return Response.status(Response.Status.NOT_FOUND)
                     .entity("Alert not found: " + e.getMessage())
                     .build();
+        } catch (AlertActionService.AlertConflictException e) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(e.getMessage())
+                    .build();
+        } catch (RuleConfigCache.RuleConfigUnavailableException e) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .entity(e.getMessage())
+                    .build();
         } catch (Exception e) {
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity("An unexpected error occurred: " + e.getMessage())
                     .build();
         }
     }
+
+    @GET
+    @Path("/rule-cache")
+    public Response ruleCacheStats() {
+        return Response.ok(ruleConfigCache.stats()).build();
+    }
 }
 
 package com.yourapp.dto;
@@ -65,13 +102,57 @@ public class AlertActionRequest {
     @NotBlank(message = "Risk Management Action must not be blank")
     private String riskManagementAction;
 
+    // The version of the alert the analyst acted on, from GET /alerts/{alertId}; a changed alert is rejected with 409
+    @NotNull(message = "Version must not be null")
+    private Long version;
+
     // Getters and Setters
 }
 
+package com.yourapp.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * An alert as the analyst sees it; an action on the alert sends its version back.
+ */
+public class AlertState {
+
+    private final Long alertId;
+    private final String alertStatus;
+    private final String assignedTo;
+    private final String assignedRole;
+    private final String lastActionTaken;
+    private final LocalDateTime lastActionDate;
+    private final LocalDateTime dueDate;
+    private final Long version;
+
+    public AlertState(Long alertId, String alertStatus, String assignedTo, String assignedRole, String lastActionTaken,
+                      LocalDateTime lastActionDate, LocalDateTime dueDate, Long version) {
+        this.alertId = alertId;
+        this.alertStatus = alertStatus;
+        this.assignedTo = assignedTo;
+        this.assignedRole = assignedRole;
+        this.lastActionTaken = lastActionTaken;
+        this.lastActionDate = lastActionDate;
+        this.dueDate = dueDate;
+        this.version = version;
+    }
+
+    public Long getAlertId() { return alertId; }
+    public String getAlertStatus() { return alertStatus; }
+    public String getAssignedTo() { return assignedTo; }
+    public String getAssignedRole() { return assignedRole; }
+    public String getLastActionTaken() { return lastActionTaken; }
+    public LocalDateTime getLastActionDate() { return lastActionDate; }
+    public LocalDateTime getDueDate() { return dueDate; }
+    public Long getVersion() { return version; }
+}
+
 package com.yourapp.service;
 
 import com.yourapp.dto.AlertActionRequest;
-import com.yourapp.entity.Alert;
+import com.yourapp.dto.AlertState;
 import com.yourapp.entity.AlertAction;
 import com.yourapp.entity.AlertAudit;
 import com.yourapp.entity.AlertStageDecision;
@@ -79,6 +160,7 @@ import com.yourapp.repository.AlertActionRepository;
 import com.yourapp.repository.AlertAuditRepository;
 import com.yourapp.repository.AlertRepository;
 import com.yourapp.repository.AlertStageDecisionRepository;
+import io.quarkus.panache.common.Parameters;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
@@ -101,17 +183,26 @@ public class AlertActionService {
     @Inject
     AlertAuditRepository alertAuditRepository;
 
+    @Inject
+    RuleConfigCache ruleConfigCache;
+
+    /**
+     * Applies an action to an alert in one transaction. The alert is not loaded and overwritten: it is updated with
+     * UPDATE ... WHERE id = ? AND version = ?, which also increments the version, so the action only applies to the
+     * version in the request; if another action changed the alert since, no row is updated and the action is
+     * rejected. The UPDATE's row lock is held until the transaction commits, with the three inserts. Alerts whose
+     * version is NULL count as version 0.
+     *
+     * @throws IllegalArgumentException If the action is invalid or the request has no version.
+     * @throws AlertConflictException If the alert is not at the request's version.
+     */
     @Transactional
     public void processAlertAction(Long alertId, AlertActionRequest request) {
-        Alert alert = alertRepository.findById(alertId);
-        if (alert == null) {
-            throw new NotFoundException("Alert ID " + alertId + " not found.");
-        }
-
         LocalDateTime now = LocalDateTime.now();
 
         // Update Alert based on action
-        updateAlertBasedOnAction(alert, request.getAction(), request.getAssignedTo(), request.getAssignedRole(), now);
+        updateAlertBasedOnAction(alertId, request.getAction(), request.getAssignedTo(), request.getAssignedRole(),
+                request.getVersion(), now);
 
         // Persist Alert Action
         AlertAction alertAction = new AlertAction(alertId, request.getAction(), request.getAssignedTo(), request.getAssignedRole(), now);
@@ -126,38 +217,81 @@ public class AlertActionService {
         alertAuditRepository.persist(alertAudit);
     }
 
-    private void updateAlertBasedOnAction(Alert alert, String action, String assignedTo, String assignedRole, LocalDateTime now) {
-        alert.setLastActionTaken(action);
-        alert.setLastActionDate(now);
+    /**
+     * @return The alert's current state; its version is the one an action on the alert must send.
+     */
+    public AlertState getAlertState(Long alertId) {
+        return alertRepository.getEntityManager()
+                .createQuery("select new com.yourapp.dto.AlertState(a.id, a.alertStatus, a.assignedTo, a.assignedRole,"
+                        + " a.lastActionTaken, a.lastActionDate, a.dueDate, coalesce(a.version, 0L))"
+                        + " from Alert a where a.id = :id", AlertState.class)
+                .setParameter("id", alertId)
+                .getResultStream()
+                .findFirst()
+                .orElseThrow(() -> new NotFoundException("Alert ID " + alertId + " not found."));
+    }
+
+    private void updateAlertBasedOnAction(Long alertId, String action, String assignedTo, String assignedRole,
+                                          Long expectedVersion, LocalDateTime now) {
+        if (expectedVersion == null) {
+            // Also rejected by bean validation of the request
+            throw new IllegalArgumentException("Missing version: send the version of the alert the action was chosen on.");
+        }
+        String update = "lastActionTaken = :action, lastActionDate = :now, alertStatus = :status,"
+                + " assignedTo = :assignedTo, assignedRole = :assignedRole, version = coalesce(version, 0L) + 1";
+        Parameters parameters = Parameters.with("action", action).and("now", now).and("id", alertId)
+                .and("version", expectedVersion);
+        boolean setDueDate;
 
         switch (action.toLowerCase()) {
             case "resolved":
             case "acknowledge":
-                alert.setAssignedTo(null);
-                alert.setAssignedRole(null);
-                alert.setAlertStatus("Closed");
+                parameters.and("assignedTo", null).and("assignedRole", null).and("status", "Closed");
+                setDueDate = false;
                 break;
 
             case "review needed":
             case "aligned":
             case "not-aligned":
             case "refer back":
-                alert.setAssignedTo(assignedTo);
-                alert.setAssignedRole(assignedRole);
-                alert.setAlertStatus("In Progress");
-                alert.setDueDate(now.plusDays(fetchDueInDaysFromLibrary(alert.getRuleId())));
+                parameters.and("assignedTo", assignedTo).and("assignedRole", assignedRole).and("status", "In Progress");
+                update += ", dueDate = :dueDate";
+                setDueDate = true;
                 break;
 
             default:
                 throw new IllegalArgumentException("Invalid action: " + action);
         }
-
-        alertRepository.persist(alert);
+        update += " where id = :id and coalesce(version, 0L) = :version";
+
+        // Only the version and rule are needed, not the managed entity
+        Object[] current = alertRepository.getEntityManager()
+                .createQuery("select coalesce(a.version, 0L), a.ruleId from Alert a where a.id = :id", Object[].class)
+                .setParameter("id", alertId)
+                .getResultStream()
+                .findFirst()
+                .orElseThrow(() -> new NotFoundException("Alert ID " + alertId + " not found."));
+        Long version = (Long) current[0];
+        if (!expectedVersion.equals(version)) {
+            throw new AlertConflictException("Alert " + alertId + " was changed by another action (version "
+                    + version + ", expected " + expectedVersion + "). Reload it and try again.");
+        }
+        if (setDueDate) {
+            parameters.and("dueDate", now.plusDays(ruleConfigCache.getDueInDays((Long) current[1])));
+        }
+        if (alertRepository.update(update, parameters) == 0) {
+            // Another action committed between the read and the update
+            throw new AlertConflictException("Alert " + alertId + " was changed by another action. Reload it and try again.");
+        }
     }
 
-    private int fetchDueInDaysFromLibrary(Long ruleId) {
-        // Implement logic to fetch due days based on ruleId
-        return 5; // Placeholder value
+    /**
+     * The alert was changed by another action since the analyst loaded it, or while this one was applied.
+     */
+    public static class AlertConflictException extends RuntimeException {
+        public AlertConflictException(String message) {
+            super(message);
+        }
     }
 }
 
@@ -205,25 +339,248 @@ public class AlertAuditRepository implements PanacheRepository<AlertAudit> {
     // Standard CRUD operations are available
 }
 
+package com.yourapp.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * A rule of the rule library, with the settings alert actions take from it.
+ */
+@Entity
+@Table(name = "rule_library")
+public class RuleConfig {
+
+    @Id
+    @Column(name = "rule_id")
+    private Long ruleId;
+
+    @Column(name = "rule_name")
+    private String ruleName;
+
+    @Column(name = "due_in_days")
+    private Integer dueInDays;
+
+    public Long getRuleId() {
+        return ruleId;
+    }
+
+    public String getRuleName() {
+        return ruleName;
+    }
+
+    public Integer getDueInDays() {
+        return dueInDays;
+    }
+}
+
+package com.yourapp.repository;
+
+import com.yourapp.entity.RuleConfig;
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.control.ActivateRequestContext;
+
+import java.util.List;
+import java.util.Optional;
+
+@ApplicationScoped
+public class RuleConfigRepository implements PanacheRepository<RuleConfig> {
+
+    // The rule cache loads on its own threads, which have no request context for the session
+
+    @ActivateRequestContext
+    public Optional<RuleConfig> findRule(Long ruleId) {
+        return findByIdOptional(ruleId);
+    }
+
+    @ActivateRequestContext
+    public List<RuleConfig> listRules() {
+        return listAll();
+    }
+}
+
+package com.yourapp.service;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.yourapp.entity.RuleConfig;
+import com.yourapp.repository.RuleConfigRepository;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rule library settings by rule ID. The whole library is loaded at startup and only bounded by maximum-size:
+ * entries are not dropped for being unused. An entry older than refresh-after-write is reloaded in the
+ * background while its current value keeps being served.
+ * <p>
+ * A rule that is not cached, because the preload failed or the rule is new, is loaded on first use; the lookup
+ * waits for it up to load-timeout, and fails with a retryable RuleConfigUnavailableException rather than
+ * returning the default settings as if they were the rule's. Unknown rules are cached as absent, so they cost
+ * one query per refresh; they get the default settings, which is counted and logged.
+ */
+@ApplicationScoped
+public class RuleConfigCache {
+
+    private static final Logger LOG = Logger.getLogger(RuleConfigCache.class);
+
+    @Inject
+    RuleConfigRepository ruleConfigRepository;
+
+    @ConfigProperty(name = "alert.rules.cache.maximum-size", defaultValue = "10000")
+    long maximumSize;
+
+    @ConfigProperty(name = "alert.rules.cache.refresh-after-write", defaultValue = "5M")
+    Duration refreshAfterWrite;
+
+    @ConfigProperty(name = "alert.rules.cache.load-timeout", defaultValue = "2S")
+    Duration loadTimeout;
+
+    @ConfigProperty(name = "alert.rules.default-due-in-days", defaultValue = "30")
+    int defaultDueInDays;
+
+    private AsyncLoadingCache<Long, Optional<RuleConfig>> cache;
+    /** Lookups answered with the default settings, for rules missing from the library. */
+    private final LongAdder defaultFallbacks = new LongAdder();
+    /** Lookups failed because the rule could not be loaded in time. */
+    private final LongAdder unavailable = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .refreshAfterWrite(refreshAfterWrite)
+                .recordStats()
+                .buildAsync(ruleId -> ruleConfigRepository.findRule(ruleId));
+    }
+
+    void preload(@Observes StartupEvent event) {
+        try {
+            List<RuleConfig> rules = ruleConfigRepository.listRules();
+            for (RuleConfig rule : rules) {
+                cache.put(rule.getRuleId(), CompletableFuture.completedFuture(Optional.of(rule)));
+            }
+            LOG.infof("Preloaded %d rules from the rule library", rules.size());
+        } catch (RuntimeException e) {
+            LOG.warn("Cannot preload the rule library, rules will be loaded on first use", e);
+        }
+    }
+
+    /**
+     * @return The rule's settings, or empty if the rule is not in the library. A rule that is not cached is
+     *         loaded, waiting up to load-timeout.
+     * @throws RuleConfigUnavailableException If the rule could not be loaded in time; a failed load is retried
+     *                                        by the next lookup.
+     */
+    public Optional<RuleConfig> get(Long ruleId) {
+        if (ruleId == null) {
+            return Optional.empty();
+        }
+        try {
+            return cache.get(ruleId).get(loadTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            unavailable.increment();
+            throw new RuleConfigUnavailableException("Interrupted while loading rule " + ruleId, e);
+        } catch (ExecutionException | TimeoutException e) {
+            unavailable.increment();
+            LOG.warnf("Rule %d could not be loaded within %s: %s", ruleId, loadTimeout, e);
+            throw new RuleConfigUnavailableException("Rule " + ruleId + " is not available yet. Try again.", e);
+        }
+    }
+
+    /**
+     * @return The rule's due-in-days, or the default if the alert has no rule, the rule is not in the library or
+     *         does not set it.
+     * @throws RuleConfigUnavailableException If the rule could not be loaded in time.
+     */
+    public int getDueInDays(Long ruleId) {
+        Optional<RuleConfig> rule = get(ruleId);
+        if (rule.isEmpty()) {
+            defaultFallbacks.increment();
+            LOG.warnf("Rule %s is not in the rule library, using the default of %d due-in-days", ruleId, defaultDueInDays);
+            return defaultDueInDays;
+        }
+        Integer dueInDays = rule.get().getDueInDays();
+        return dueInDays != null ? dueInDays : defaultDueInDays;
+    }
+
+    /**
+     * @return Size, hit and miss counts, hit rate, loads and evictions of the cache, and the lookups that fell
+     *         back to the default settings or failed.
+     */
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.synchronous().stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", cache.synchronous().estimatedSize());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("loads", stats.loadSuccessCount());
+        result.put("loadFailures", stats.loadFailureCount());
+        result.put("averageLoadMillis", stats.averageLoadPenalty() / 1_000_000.0);
+        result.put("evictions", stats.evictionCount());
+        result.put("defaultFallbacks", defaultFallbacks.sum());
+        result.put("unavailable", unavailable.sum());
+        return result;
+    }
+
+    /**
+     * A rule's settings could not be loaded in time; the action can be retried.
+     */
+    public static class RuleConfigUnavailableException extends RuntimeException {
+        public RuleConfigUnavailableException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
+
+@Inject
+EntityManager entityManager;
+
+/**
+ * Applies an action to an alert without loading and overwriting it: the alert is updated with
+ * UPDATE ... WHERE id = ? AND version = ?, which also increments the version, so the action only applies to the
+ * version the user acted on; if another action changed the alert since, no row is updated and the action is
+ * rejected with 409. The UPDATE's row lock is held until the transaction commits, with the inserts. Alerts whose
+ * version is NULL count as version 0.
+ *
+ * @param expectedVersion The version of the alert the user acted on, from getAlertState; required.
+ */
 @Transactional
 public Response handleAlertAction(Long alertId, String action, String bankId,
                                   String assignedTo, String assignedRole,
                                   String comments, String riskManagementAction,
-                                  String userRole, String userId, int stage) {
+                                  String userRole, String userId, int stage, Long expectedVersion) {
 
     if (Stream.of(alertId, action, bankId, comments, userRole, userId).anyMatch(StringUtils::isBlank)) {
         throw new BadRequestException("All mandatory fields must be provided.");
     }
-
-    AlertData alertData = alertDataRepository.findById(alertId)
-        .orElseThrow(() -> new NotFoundException("Alert not found for id: " + alertId));
+    if (expectedVersion == null) {
+        throw new BadRequestException("Missing version: send the version of the alert the action was chosen on.");
+    }
 
     LocalDateTime currentDateTime = LocalDateTime.now();
 
-    // Common fields for all actions
-    alertData.setLastActionTaken(action);
-    alertData.setLastActionDate(currentDateTime);
-
     // Initialize new action entity
     AlertAction alertAction = new AlertAction();
     alertAction.setAlertId(alertId);
@@ -256,38 +613,64 @@ public Response handleAlertAction(Long alertId, String action, String bankId,
     audit.setComments(comments);
     audit.setRuleManagementAction(riskManagementAction);
 
+    String alertStatus;
     switch (action.toUpperCase()) {
         case "RESOLVED", "ACKNOWLEDGE" -> {
-            alertData.setAlertStatus("Closed");
-            alertData.setAssignedTo(null);
-            alertData.setAssignedRole(null);
+            alertStatus = "Closed";
             alertAction.setAssignedToUser(null);
             alertAction.setAssignedToRole(null);
         }
 
         case "REVIEW NEEDED", "ALIGNED", "NOT-ALIGNED" -> {
-            alertData.setAlertStatus("In Progress");
-            alertData.setAssignedTo(assignedTo);
-            alertData.setAssignedRole(assignedRole);
-            alertData.setDueDate(LocalDateTime.now().plusDays(getDueInDays(alertData.getRuleId())));
+            alertStatus = "In Progress";
             alertAction.setAssignedToUser(assignedTo);
             alertAction.setAssignedToRole(assignedRole);
         }
 
         case "REFER BACK" -> {
-            alertData.setAlertStatus("In Progress");
-            alertData.setAssignedTo(assignedTo);
-            alertData.setAssignedRole(assignedRole);
-            alertData.setDueDate(LocalDateTime.now().plusDays(getDueInDays(alertData.getRuleId())));
+            alertStatus = "In Progress";
             alertAction.setAssignedToUser(assignedTo);
             alertAction.setAssignedToRole(assignedRole);
         }
 
         default -> throw new BadRequestException("Unsupported action: " + action);
     }
+    boolean closed = "Closed".equals(alertStatus);
+
+    String update = "update AlertData a set a.lastActionTaken = :action, a.lastActionDate = :now,"
+            + " a.alertStatus = :status, a.assignedTo = :assignedTo, a.assignedRole = :assignedRole,"
+            + " a.version = coalesce(a.version, 0L) + 1" + (closed ? "" : ", a.dueDate = :dueDate")
+            + " where a.id = :id and coalesce(a.version, 0L) = :version";
+    // Only the version and rule are needed, not the managed entity
+    Object[] current = entityManager.createQuery(
+                    "select coalesce(a.version, 0L), a.ruleId from AlertData a where a.id = :id", Object[].class)
+            .setParameter("id", alertId)
+            .getResultStream()
+            .findFirst()
+            .orElseThrow(() -> new NotFoundException("Alert not found for id: " + alertId));
+    Long version = (Long) current[0];
+    if (!expectedVersion.equals(version)) {
+        throw new ClientErrorException("Alert " + alertId + " was changed by another action (version "
+                + version + ", expected " + expectedVersion + "). Reload it and try again.", Response.Status.CONFLICT);
+    }
+    Query query = entityManager.createQuery(update)
+            .setParameter("action", action)
+            .setParameter("now", currentDateTime)
+            .setParameter("status", alertStatus)
+            .setParameter("assignedTo", closed ? null : assignedTo)
+            .setParameter("assignedRole", closed ? null : assignedRole)
+            .setParameter("id", alertId)
+            .setParameter("version", expectedVersion);
+    if (!closed) {
+        query.setParameter("dueDate", currentDateTime.plusDays(getDueInDays((Long) current[1])));
+    }
+    if (query.executeUpdate() == 0) {
+        // Another action committed between the read and the update
+        throw new ClientErrorException("Alert " + alertId + " was changed by another action. Reload it and try again.",
+                Response.Status.CONFLICT);
+    }
 
-    // Save all
-    alertDataRepository.persist(alertData);
+    // Save all; flushed at commit, while the alert's row is still locked by the update
     alertActionsRepository.persist(alertAction);
     alertStageDecisionRepository.persist(decision);
     alertAuditHistoryRepository.persist(audit);
@@ -295,9 +678,21 @@ public Response handleAlertAction(Long alertId, String action, String bankId,
     return Response.ok("Alert action processed successfully.").build();
 }
 
-// Mock implementation – replace with ruleService call
 private int getDueInDays(Long ruleId) {
-    return 7; // Placeholder logic
+    return ruleConfigCache.getDueInDays(ruleId);
+}
+
+/**
+ * @return The alert's current state; its version is the one an action on the alert must send.
+ */
+public AlertState getAlertState(Long alertId) {
+    return entityManager.createQuery("select new AlertState(a.id, a.alertStatus, a.assignedTo, a.assignedRole,"
+                    + " a.lastActionTaken, a.lastActionDate, a.dueDate, coalesce(a.version, 0L))"
+                    + " from AlertData a where a.id = :id", AlertState.class)
+            .setParameter("id", alertId)
+            .getResultStream()
+            .findFirst()
+            .orElseThrow(() -> new NotFoundException("Alert not found for id: " + alertId));
 }
 
 
@@ -310,6 +705,23 @@ public class AlertActionController {
     @Inject
     AlertActionService alertActionService;
 
+    /**
+     * The alert's current state, with the version an action on it must send.
+     */
+    @GET
+    @Path("/{alertId}")
+    public Response getAlertState(@PathParam("alertId") Long alertId) {
+        try {
+            return Response.ok(alertActionService.getAlertState(alertId)).build();
+        } catch (NotFoundException e) {
+            return Response.status(Response.Status.NOT_FOUND).entity(e.getMessage()).build();
+        }
+    }
+
+    /**
+     * Applies an action to the alert at the version the user loaded, from GET /alertAction/{alertId}.
+     * The version is required: without it the response is 400, and if the alert has changed since it is 409.
+     */
     @PUT
     @Path("/{alertId}/{action}/{bankId}/{assignedTo}/{assignedRole}")
     public Response takeAlertAction(@PathParam("alertId") Long alertId,
@@ -321,20 +733,26 @@ public class AlertActionController {
                                     @QueryParam("userRole") String userRole,
                                     @QueryParam("stage") int stage,
                                     @QueryParam("comments") String comments,
-                                    @QueryParam("riskManagementAction") String riskManagementAction) {
+                                    @QueryParam("riskManagementAction") String riskManagementAction,
+                                    @QueryParam("version") Long version) {
 
         if (alertId == null || action == null || bankId == null || assignedRole == null ||
-            userId == null || userRole == null || comments == null || stage <= 0) {
+            userId == null || userRole == null || comments == null || stage <= 0 || version == null) {
             return Response.status(Response.Status.BAD_REQUEST)
                     .entity("All fields are mandatory and must be valid.").build();
         }
 
         try {
             alertActionService.handleAlertAction(alertId, action, bankId, assignedTo, assignedRole,
-                    userId, userRole, stage, comments, riskManagementAction);
+                    userId, userRole, stage, comments, riskManagementAction, version);
             return Response.ok("Action '" + action + "' executed successfully.").build();
         } catch (IllegalArgumentException e) {
             return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        } catch (ClientErrorException e) {
+            // 409 when the alert changed, and the service's 400 and 404
+            return Response.status(e.getResponse().getStatus()).entity(e.getMessage()).build();
+        } catch (RuleConfigCache.RuleConfigUnavailableException e) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE).entity(e.getMessage()).build();
         } catch (Exception e) {
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity("Failed to process alert action. Please try again.").build();
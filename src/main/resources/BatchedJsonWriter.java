@@ -0,0 +1,190 @@
+package com.dbtojson;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * Writes generated JSON back to the database through a single reused prepared statement.
+ * Rows are sent with addBatch/executeBatch and the transaction is committed every commitInterval rows.
+ * <p>
+ * With a reject log, every batch runs under a savepoint. If the batch fails, it is rolled back to the savepoint
+ * and its rows are retried one by one, each under its own savepoint; rows that still fail are written to the
+ * reject log and the rest of the batch is kept. Without one, the first failed batch fails the writer.
+ */
+public class BatchedJsonWriter implements JsonRowWriter {
+
+    private final Connection conn;
+    private final PreparedStatement stmt;
+    private final int batchSize;
+    private final int commitInterval;
+    private final boolean hashed;
+    private final ModuleStats stats;
+    private final RejectLog rejects;
+    private final Object[] batchKeys;
+    private final String[] batchJson;
+    private final long[] batchHashes;
+
+    private int pendingInBatch;
+    private int uncommitted;
+    private long rowsWritten;
+    private long rowsAffected;
+
+    /**
+     * @param conn The connection to write on; autocommit is switched off.
+     * @param updateSql The update statement taking the JSON as first and the primary key as last parameter.
+     * @param batchSize The number of rows sent per executeBatch.
+     * @param commitInterval The number of rows written per transaction.
+     * @param hashed If true, the statement takes the JSON hash as second parameter.
+     * @param stats Receives batch sizes, batch latencies and round trips.
+     * @param rejects Receives the rows whose update failed, or null to fail on the first failed batch.
+     */
+    public BatchedJsonWriter(Connection conn, String updateSql, int batchSize, int commitInterval,
+                             boolean hashed, ModuleStats stats, RejectLog rejects) throws SQLException {
+        this.conn = conn;
+        this.hashed = hashed;
+        this.stats = stats;
+        this.rejects = rejects;
+        this.batchSize = Math.max(1, batchSize);
+        this.commitInterval = Math.max(this.batchSize, commitInterval);
+        this.batchKeys = new Object[this.batchSize];
+        this.batchJson = new String[this.batchSize];
+        this.batchHashes = new long[this.batchSize];
+        conn.setAutoCommit(false);
+        this.stmt = conn.prepareStatement(updateSql);
+    }
+
+    /**
+     * Queues one row for update, sending the batch and committing when the thresholds are reached.
+     */
+    @Override
+    public void write(Object primaryKey, JsonBuffer json, long hash) throws SQLException {
+        // Kept until the batch has been executed, for the row-by-row retry
+        batchKeys[pendingInBatch] = primaryKey;
+        batchJson[pendingInBatch] = json.toUtf8String();
+        batchHashes[pendingInBatch] = hash;
+        bind(pendingInBatch);
+        stmt.addBatch();
+        rowsWritten++;
+        uncommitted++;
+
+        if (++pendingInBatch >= batchSize) {
+            executeBatch();
+        }
+        if (uncommitted >= commitInterval) {
+            commit();
+        }
+    }
+
+    /**
+     * Sends any pending rows and commits them.
+     */
+    @Override
+    public void flush() throws SQLException {
+        commit();
+    }
+
+    @Override
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    @Override
+    public long getRowsAffected() {
+        return rowsAffected;
+    }
+
+    private void executeBatch() throws SQLException {
+        if (pendingInBatch == 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        Savepoint savepoint = rejects != null ? conn.setSavepoint() : null;
+        int[] counts;
+        try {
+            counts = stmt.executeBatch();
+        } catch (SQLException e) {
+            if (savepoint == null) {
+                throw e;
+            }
+            stmt.clearBatch();
+            conn.rollback(savepoint);
+            stats.addRoundTrips(2);
+            counts = executeRowByRow();
+        }
+        if (savepoint != null) {
+            conn.releaseSavepoint(savepoint);
+            // Setting and releasing the savepoint
+            stats.addRoundTrips(2);
+        }
+        stats.recordBatch(pendingInBatch, System.nanoTime() - start);
+        stats.addRoundTrips(1);
+        for (int count : counts) {
+            if (count > 0) {
+                rowsAffected += count;
+            } else if (count == Statement.SUCCESS_NO_INFO) {
+                rowsAffected++;
+            }
+        }
+        pendingInBatch = 0;
+        Arrays.fill(batchKeys, null);
+        Arrays.fill(batchJson, null);
+    }
+
+    /**
+     * Executes the rows of a failed batch one by one and rejects those that fail on their own.
+     * @return The update counts of the rows, 0 for rejected rows.
+     */
+    private int[] executeRowByRow() throws SQLException {
+        int[] counts = new int[pendingInBatch];
+        for (int i = 0; i < pendingInBatch; i++) {
+            bind(i);
+            Savepoint savepoint = conn.setSavepoint();
+            try {
+                counts[i] = stmt.executeUpdate();
+            } catch (SQLException e) {
+                conn.rollback(savepoint);
+                stats.addRoundTrips(1);
+                rowsWritten--;
+                rejects.reject(batchKeys[i], e);
+            }
+            conn.releaseSavepoint(savepoint);
+            stats.addRoundTrips(3);
+        }
+        return counts;
+    }
+
+    private void bind(int index) throws SQLException {
+        stmt.setString(1, batchJson[index]);
+        if (hashed) {
+            stmt.setLong(2, batchHashes[index]);
+            stmt.setObject(3, batchKeys[index]);
+        } else {
+            stmt.setObject(2, batchKeys[index]);
+        }
+    }
+
+    private void commit() throws SQLException {
+        executeBatch();
+        conn.commit();
+        stats.addRoundTrips(1);
+        uncommitted = 0;
+    }
+
+    /**
+     * Closes the statement. Rows not flushed are rolled back.
+     */
+    @Override
+    public void close() throws SQLException {
+        try {
+            if (uncommitted > 0) {
+                conn.rollback();
+            }
+        } finally {
+            stmt.close();
+        }
+    }
+}
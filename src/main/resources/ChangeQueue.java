@@ -0,0 +1,78 @@
+package com.dbtojson;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import org.postgresql.PGConnection;
+
+/**
+ * The primary keys of changed source rows, queued per module by the dbtojson_enqueue_change trigger (see db.sql).
+ * Entries are claimed by deleting them in the writer's transaction, so they return to the queue if the batch
+ * fails; SKIP LOCKED lets several workers drain the same module. The trigger also notifies the
+ * {@value #CHANNEL} channel, so an idle worker wakes up as soon as a change is committed.
+ */
+public class ChangeQueue {
+
+    public static final String CHANNEL = "dbtojson_changes";
+
+    private final String claimSql;
+
+    /**
+     * @param queueTable The queue table with module, pk and an ascending id.
+     */
+    public ChangeQueue(String queueTable) {
+        this.claimSql = "DELETE FROM " + queueTable + " q WHERE q.id IN ("
+                + "SELECT id FROM " + queueTable + " WHERE module = ? ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED"
+                + ") RETURNING q.pk";
+    }
+
+    /**
+     * Removes up to batchSize of the module's oldest entries in the connection's current transaction.
+     * @return The distinct keys; a row changed several times is refreshed once.
+     */
+    public Long[] claim(Connection conn, String module, int batchSize) throws SQLException {
+        Set<Long> keys = new LinkedHashSet<>();
+        try (PreparedStatement stmt = conn.prepareStatement(claimSql)) {
+            stmt.setString(1, module);
+            stmt.setInt(2, batchSize);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    keys.add(rs.getLong(1));
+                }
+            }
+        }
+        return keys.toArray(new Long[0]);
+    }
+
+    /**
+     * Subscribes the connection to change notifications. It must be in autocommit mode and used for nothing else,
+     * and unsubscribed with {@link #unlisten} before it is closed.
+     */
+    public static void listen(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("LISTEN " + CHANNEL);
+        }
+    }
+
+    /**
+     * Unsubscribes the connection from all channels and drops the notifications already received, before it
+     * is closed and returned to the pool.
+     */
+    public static void unlisten(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("UNLISTEN *");
+        }
+        conn.unwrap(PGConnection.class).getNotifications();
+    }
+
+    /**
+     * Waits until a change is notified on a listening connection, or the timeout has passed.
+     */
+    public static void await(Connection listenConn, int timeoutMillis) throws SQLException {
+        listenConn.unwrap(PGConnection.class).getNotifications(Math.max(1, timeoutMillis));
+    }
+}
@@ -0,0 +1,99 @@
+package com.dbtojson;
+
+import com.dbtojson.KeyRangePartitioner.KeyRange;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the progress of a module run in a database table so a failed run can resume where it stopped.
+ * There is one row per unfinished key range: the range is identified by its upper bound and
+ * next_key is the lowest key not yet committed. Finished ranges are deleted, so a module without
+ * rows starts from scratch.
+ * <p>
+ * A checkpoint is advanced right after the writes it covers are committed. If the run stops in
+ * between, the last page is written again on resume, which is harmless because writes are idempotent.
+ */
+public class CheckpointStore {
+
+    private final String table;
+    private final String moduleName;
+
+    /**
+     * @param table The checkpoint table, with columns module, range_upper and next_key.
+     * @param moduleName The module whose progress is recorded.
+     */
+    public CheckpointStore(String table, String moduleName) {
+        this.table = table;
+        this.moduleName = moduleName;
+    }
+
+    /**
+     * Loads the unfinished ranges of an earlier run.
+     * @return The remaining part of each unfinished range, ordered by key; empty if there is nothing to resume.
+     */
+    public List<KeyRange> load(Connection conn) throws SQLException {
+        List<KeyRange> ranges = new ArrayList<>();
+        String sql = "SELECT next_key, range_upper FROM " + table + " WHERE module = ? ORDER BY next_key";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, moduleName);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ranges.add(new KeyRange(rs.getLong(1), rs.getLong(2)));
+                }
+            }
+        }
+        return ranges;
+    }
+
+    /**
+     * Records the ranges of a new run, none of them started.
+     */
+    public void start(Connection conn, List<KeyRange> ranges) throws SQLException {
+        conn.setAutoCommit(false);
+        String sql = "INSERT INTO " + table + " (module, range_upper, next_key) VALUES (?, ?, ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (KeyRange range : ranges) {
+                stmt.setString(1, moduleName);
+                stmt.setLong(2, range.getUpper());
+                stmt.setLong(3, range.getLower());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        }
+    }
+
+    /**
+     * Records that every key of the range below nextKey has been committed.
+     */
+    public void advance(Connection conn, KeyRange range, long nextKey) throws SQLException {
+        String sql = "UPDATE " + table + " SET next_key = ?, updated_at = CURRENT_TIMESTAMP WHERE module = ? AND range_upper = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, nextKey);
+            stmt.setString(2, moduleName);
+            stmt.setLong(3, range.getUpper());
+            stmt.executeUpdate();
+        }
+        conn.commit();
+    }
+
+    /**
+     * Removes a range once all of its rows have been committed.
+     */
+    public void complete(Connection conn, KeyRange range) throws SQLException {
+        String sql = "DELETE FROM " + table + " WHERE module = ? AND range_upper = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, moduleName);
+            stmt.setLong(2, range.getUpper());
+            stmt.executeUpdate();
+        }
+        conn.commit();
+    }
+}
@@ -0,0 +1,23 @@
+package com.dbtojson;
+
+/**
+ * Converts a column value to the type of a DTO setter.
+ * Implementations named in the 'converters' setting are added to the {@link ConverterRegistry} and take
+ * precedence over the built-in conversions for the same source and target type.
+ * They need a public no-arg constructor and must be thread-safe.
+ *
+ * @param <S> The value class the JDBC driver returns for the column, or a supertype of it.
+ * @param <T> The setter parameter type.
+ */
+public interface ColumnConverter<S, T> {
+
+    Class<S> sourceType();
+
+    Class<T> targetType();
+
+    /**
+     * @param value The column value; never null.
+     * @return The converted value, or null to leave the DTO property unset.
+     */
+    T convert(S value);
+}
@@ -0,0 +1,366 @@
+package com.dbtojson;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Maps a fetched row to a DTO using a plan compiled once per DTO class and result set layout.
+ * Column indexes, setters and converters are resolved when the plan is built, so mapping a row
+ * makes one pre-bound call per column.
+ * <p>
+ * Integral and floating-point columns bound to primitive setters are passed as primitives, without
+ * boxing; other columns go through the converter the {@link ConverterRegistry} chose for the
+ * column's value class and the setter type.
+ * <p>
+ * In a native image, where classes cannot be defined at run time, setters and constructors are called
+ * through reflection instead of LambdaMetafactory-generated lambdas.
+ *
+ * @param <T> The DTO class.
+ */
+public class CompiledRowMapper<T> {
+
+    private static final Map<PlanKey, CompiledRowMapper<?>> CACHE = new ConcurrentHashMap<>();
+    private static final boolean NATIVE_IMAGE = "runtime".equals(System.getProperty("org.graalvm.nativeimage.imagecode"));
+
+    private final Supplier<T> constructor;
+    private final Binding[] bindings;
+
+    private CompiledRowMapper(Supplier<T> constructor, Binding[] bindings) {
+        this.constructor = constructor;
+        this.bindings = bindings;
+    }
+
+    /**
+     * Returns the cached mapper for the DTO class and the schema using the built-in conversions.
+     * @see #forSchema(Class, RowSchema, ConverterRegistry)
+     */
+    public static <T> CompiledRowMapper<T> forSchema(Class<T> dtoClass, RowSchema schema) {
+        return forSchema(dtoClass, schema, ConverterRegistry.defaults());
+    }
+
+    /**
+     * Returns the cached mapper for the DTO class and the columns of the schema, compiling it on first use.
+     * @param dtoClass The DTO class; it needs a public no-arg constructor.
+     * @param schema The schema of the rows to map.
+     * @param converters The conversions available to the plan.
+     * @return The compiled mapper.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> CompiledRowMapper<T> forSchema(Class<T> dtoClass, RowSchema schema, ConverterRegistry converters) {
+        return (CompiledRowMapper<T>) CACHE.computeIfAbsent(new PlanKey(dtoClass, schema, converters),
+                key -> compile(dtoClass, schema, converters));
+    }
+
+    /**
+     * Maps one row to a new DTO instance.
+     * @param row The row, with the columns the plan was compiled for.
+     * @return The populated DTO.
+     */
+    public T map(Row row) {
+        T dto = constructor.get();
+        for (Binding binding : bindings) {
+            binding.bind(row, dto);
+        }
+        return dto;
+    }
+
+    private static <T> CompiledRowMapper<T> compile(Class<T> dtoClass, RowSchema schema, ConverterRegistry converters) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        String[] columns = schema.getColumns();
+        List<Binding> bindings = new ArrayList<>();
+        List<String> missingSetters = new ArrayList<>();
+        List<String> unconvertible = new ArrayList<>();
+
+        for (int index = 0; index < columns.length; index++) {
+            String column = columns[index];
+            String setterMethodName = "set" + capitalize(toCamelCase(column));
+            Method setter = findSetter(dtoClass, setterMethodName);
+            if (setter == null) {
+                missingSetters.add(column);
+                continue;
+            }
+            Binding binding = bind(lookup, dtoClass, setter, schema, index, converters);
+            if (binding == null) {
+                unconvertible.add(column + " -> " + setter.getParameterTypes()[0].getSimpleName());
+                continue;
+            }
+            bindings.add(binding);
+        }
+
+        System.out.println("Compiled mapping plan for " + dtoClass.getSimpleName() + ": "
+                + bindings.size() + " of " + columns.length + " columns bound.");
+        if (!missingSetters.isEmpty()) {
+            System.err.println("Warning: No setter found in " + dtoClass.getSimpleName() + " for columns " + missingSetters);
+        }
+        if (!unconvertible.isEmpty()) {
+            System.err.println("Warning: No conversion available in " + dtoClass.getSimpleName() + " for columns " + unconvertible);
+        }
+
+        return new CompiledRowMapper<>(constructorLambda(lookup, dtoClass), bindings.toArray(new Binding[0]));
+    }
+
+    /**
+     * Chooses how one column reaches its setter.
+     * @return The binding, or null if the column's values cannot be converted to the setter type.
+     */
+    private static Binding bind(MethodHandles.Lookup lookup, Class<?> dtoClass, Method setter,
+                                RowSchema schema, int index, ConverterRegistry converters) {
+        Class<?> targetType = setter.getParameterTypes()[0];
+        int kind = schema.kind(index);
+        boolean integral = kind == RowSchema.KIND_LONG;
+        boolean numeric = integral || kind == RowSchema.KIND_DOUBLE;
+
+        // Primitive columns into primitive setters: read from the row's primitive slot, nothing boxed.
+        // SQL NULL leaves the field at its default, like an unset property.
+        if (targetType == long.class && integral) {
+            LongSetter set = setterLambda(lookup, LongSetter.class, long.class, dtoClass, setter);
+            return (row, dto) -> {
+                if (!row.isNull(index)) {
+                    set.set(dto, row.getLong(index));
+                }
+            };
+        } else if (targetType == int.class && integral) {
+            IntSetter set = setterLambda(lookup, IntSetter.class, int.class, dtoClass, setter);
+            return (row, dto) -> {
+                if (!row.isNull(index)) {
+                    set.set(dto, (int) row.getLong(index));
+                }
+            };
+        } else if (targetType == double.class && numeric) {
+            DoubleSetter set = setterLambda(lookup, DoubleSetter.class, double.class, dtoClass, setter);
+            return (row, dto) -> {
+                if (!row.isNull(index)) {
+                    set.set(dto, row.getDouble(index));
+                }
+            };
+        } else if (targetType == float.class && numeric) {
+            FloatSetter set = setterLambda(lookup, FloatSetter.class, float.class, dtoClass, setter);
+            return (row, dto) -> {
+                if (!row.isNull(index)) {
+                    set.set(dto, (float) row.getDouble(index));
+                }
+            };
+        }
+
+        Function<Object, Object> converter = converters.resolve(schema, index, targetType);
+        if (converter == null) {
+            return null;
+        }
+        BiConsumer<Object, Object> set = setterLambda(lookup, BiConsumer.class, Object.class, dtoClass, setter);
+        String column = schema.getColumn(index);
+        return (row, dto) -> {
+            if (row.isNull(index)) {
+                return;
+            }
+            Object value = row.get(index);
+            Object converted;
+            try {
+                converted = converter.apply(value);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Cannot convert column " + column + " value '" + value
+                        + "' to " + targetType.getSimpleName(), e);
+            }
+            if (converted != null) {
+                set.accept(dto, converted);
+            }
+        };
+    }
+
+    /**
+     * Binds a setter to a functional interface with LambdaMetafactory, so calls through it are plain interface calls.
+     * @param setterInterface The interface, with a single method taking the DTO and the value.
+     * @param valueType The value parameter type of the interface method.
+     */
+    @SuppressWarnings("unchecked")
+    private static <I> I setterLambda(MethodHandles.Lookup lookup, Class<? super I> setterInterface, Class<?> valueType,
+                                      Class<?> dtoClass, Method setter) {
+        Class<?> paramType = setter.getParameterTypes()[0];
+        // Object-typed values reach primitive setters boxed and are unboxed by the lambda
+        Class<?> instantiatedType = valueType == Object.class ? MethodType.methodType(paramType).wrap().returnType() : paramType;
+        if (NATIVE_IMAGE) {
+            return (I) reflectiveSetter(setterInterface, setter);
+        }
+        try {
+            MethodHandle target = lookup.unreflect(setter);
+            CallSite site = LambdaMetafactory.metafactory(
+                    lookup,
+                    setterInterface == BiConsumer.class ? "accept" : "set",
+                    MethodType.methodType(setterInterface),
+                    MethodType.methodType(void.class, Object.class, valueType),
+                    target,
+                    MethodType.methodType(void.class, dtoClass, instantiatedType));
+            return (I) site.getTarget().invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot bind setter " + setter, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Supplier<T> constructorLambda(MethodHandles.Lookup lookup, Class<T> dtoClass) {
+        if (NATIVE_IMAGE) {
+            return reflectiveConstructor(dtoClass);
+        }
+        try {
+            MethodHandle target = lookup.findConstructor(dtoClass, MethodType.methodType(void.class));
+            CallSite site = LambdaMetafactory.metafactory(
+                    lookup,
+                    "get",
+                    MethodType.methodType(Supplier.class),
+                    MethodType.methodType(Object.class),
+                    target,
+                    MethodType.methodType(dtoClass));
+            return (Supplier<T>) site.getTarget().invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException("No accessible no-arg constructor in " + dtoClass.getName(), e);
+        }
+    }
+
+    private static Object reflectiveSetter(Class<?> setterInterface, Method setter) {
+        if (setterInterface == LongSetter.class) {
+            return (LongSetter) (dto, value) -> invoke(setter, dto, value);
+        } else if (setterInterface == IntSetter.class) {
+            return (IntSetter) (dto, value) -> invoke(setter, dto, value);
+        } else if (setterInterface == DoubleSetter.class) {
+            return (DoubleSetter) (dto, value) -> invoke(setter, dto, value);
+        } else if (setterInterface == FloatSetter.class) {
+            return (FloatSetter) (dto, value) -> invoke(setter, dto, value);
+        }
+        return (BiConsumer<Object, Object>) (dto, value) -> invoke(setter, dto, value);
+    }
+
+    private static void invoke(Method setter, Object dto, Object value) {
+        try {
+            setter.invoke(dto, value);
+        } catch (InvocationTargetException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+                    : new IllegalStateException("Setter " + setter + " failed", e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot call setter " + setter, e);
+        }
+    }
+
+    private static <T> Supplier<T> reflectiveConstructor(Class<T> dtoClass) {
+        Constructor<T> constructor;
+        try {
+            constructor = dtoClass.getConstructor();
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("No accessible no-arg constructor in " + dtoClass.getName(), e);
+        }
+        return () -> {
+            try {
+                return constructor.newInstance();
+            } catch (InvocationTargetException e) {
+                throw new IllegalStateException("Constructor of " + dtoClass.getName() + " failed", e.getCause());
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot create " + dtoClass.getName(), e);
+            }
+        };
+    }
+
+    private static String toCamelCase(String snakeCase) {
+        StringBuilder camelCaseBuilder = new StringBuilder();
+        String[] parts = snakeCase.split("_");
+        for (int i = 0; i < parts.length; i++) {
+            if (i == 0) {
+                camelCaseBuilder.append(parts[i]);
+            } else {
+                camelCaseBuilder.append(capitalize(parts[i]));
+            }
+        }
+        return camelCaseBuilder.toString();
+    }
+
+    private static String capitalize(String str) {
+        if (str == null || str.isEmpty()) {
+            return str;
+        }
+        return str.substring(0, 1).toUpperCase() + str.substring(1);
+    }
+
+    private static Method findSetter(Class<?> clazz, String setterMethodName) {
+        for (Method method : clazz.getMethods()) {
+            if (method.getName().equals(setterMethodName) && method.getParameterCount() == 1) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Sets one column of a row on a DTO.
+     */
+    @FunctionalInterface
+    interface Binding {
+        void bind(Row row, Object dto);
+    }
+
+    @FunctionalInterface
+    interface LongSetter {
+        void set(Object dto, long value);
+    }
+
+    @FunctionalInterface
+    interface IntSetter {
+        void set(Object dto, int value);
+    }
+
+    @FunctionalInterface
+    interface DoubleSetter {
+        void set(Object dto, double value);
+    }
+
+    @FunctionalInterface
+    interface FloatSetter {
+        void set(Object dto, float value);
+    }
+
+    /**
+     * Cache key: the DTO class, the ordered column names and value classes of the result set, and the registry.
+     */
+    private static final class PlanKey {
+        private final Class<?> dtoClass;
+        private final String[] columns;
+        private final String[] columnTypes;
+        private final ConverterRegistry converters;
+
+        PlanKey(Class<?> dtoClass, RowSchema schema, ConverterRegistry converters) {
+            this.dtoClass = dtoClass;
+            this.columns = schema.getColumns();
+            this.columnTypes = new String[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                columnTypes[i] = schema.getJdbcType(i) + ":" + schema.getColumnClassName(i);
+            }
+            this.converters = converters;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof PlanKey)) {
+                return false;
+            }
+            PlanKey other = (PlanKey) o;
+            return dtoClass.equals(other.dtoClass) && Arrays.equals(columns, other.columns)
+                    && Arrays.equals(columnTypes, other.columnTypes) && converters == other.converters;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(dtoClass, Arrays.hashCode(columns), Arrays.hashCode(columnTypes), converters);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.dbtojson;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Conversions from column value classes to DTO setter types, keyed by (source class, target type).
+ * A mapping plan resolves one converter per column when it is compiled, so mapping a row never
+ * decides how to convert a value.
+ * <p>
+ * A value whose class is the target type or a subclass of it is passed through unchanged. Otherwise the
+ * conversion registered for the nearest superclass or interface of the source class is used, so a
+ * conversion from Number covers every numeric class. Anything converts to String with toString.
+ */
+public final class ConverterRegistry {
+
+    private static final Map<List<String>, ConverterRegistry> CONFIGURED = new ConcurrentHashMap<>();
+    private static final Function<Object, Object> IDENTITY = value -> value;
+
+    private final Map<Class<?>, Map<Class<?>, Function<Object, Object>>> converters = new HashMap<>();
+    private final Map<Class<?>, Map<Class<?>, Optional<Function<Object, Object>>>> resolved = new ConcurrentHashMap<>();
+
+    private ConverterRegistry() {
+        registerDefaults();
+    }
+
+    /**
+     * Returns the registry with the built-in conversions and the given custom converters,
+     * creating it once per distinct list so mapping plans compiled against it can be cached.
+     * @param converterClassNames Classes implementing {@link ColumnConverter}; later entries win.
+     * @return The registry.
+     * @throws IllegalArgumentException If a class cannot be loaded or instantiated.
+     */
+    public static ConverterRegistry withConverters(List<String> converterClassNames) {
+        return CONFIGURED.computeIfAbsent(Collections.unmodifiableList(converterClassNames), names -> {
+            ConverterRegistry registry = new ConverterRegistry();
+            for (String className : names) {
+                registry.register(instantiate(className));
+            }
+            return registry;
+        });
+    }
+
+    /**
+     * @return The registry with only the built-in conversions.
+     */
+    public static ConverterRegistry defaults() {
+        return withConverters(Collections.emptyList());
+    }
+
+    /**
+     * Chooses the conversion for a column once.
+     * @param sourceType The class of the column values, or Object if the driver's class is unknown;
+     *                   the conversion is then chosen per value class and cached.
+     * @param targetType The setter parameter type; primitives resolve to their wrapper's conversion.
+     * @return The converter, or null if values of the source class cannot be converted to the type.
+     */
+    public Function<Object, Object> resolve(Class<?> sourceType, Class<?> targetType) {
+        Class<?> target = wrap(targetType);
+        if (sourceType == Object.class && target != Object.class && target != String.class) {
+            return value -> {
+                Function<Object, Object> converter = cached(value.getClass(), target);
+                return converter != null ? converter.apply(value) : null;
+            };
+        }
+        return cached(sourceType, target);
+    }
+
+    /**
+     * Chooses the conversion for a column of a result set, from the class of the values {@link Row#get(int)}
+     * returns for it.
+     * @return The converter, or null if the column's values cannot be converted to the type.
+     */
+    public Function<Object, Object> resolve(RowSchema schema, int index, Class<?> targetType) {
+        return resolve(sourceType(schema, index), targetType);
+    }
+
+    /**
+     * @return The class of the column's values, or Object if the driver reports a class that cannot be loaded.
+     */
+    private static Class<?> sourceType(RowSchema schema, int index) {
+        int kind = schema.kind(index);
+        if (kind == RowSchema.KIND_LONG) {
+            return Long.class;
+        } else if (kind == RowSchema.KIND_DOUBLE) {
+            return Double.class;
+        }
+        String className = schema.getColumnClassName(index);
+        if (className == null) {
+            return Object.class;
+        }
+        try {
+            return Class.forName(className, false, ConverterRegistry.class.getClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            return Object.class;
+        }
+    }
+
+    private Function<Object, Object> cached(Class<?> sourceType, Class<?> targetType) {
+        return resolved.computeIfAbsent(targetType, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(sourceType, key -> Optional.ofNullable(lookup(sourceType, targetType)))
+                .orElse(null);
+    }
+
+    private Function<Object, Object> lookup(Class<?> sourceType, Class<?> targetType) {
+        if (targetType.isAssignableFrom(sourceType)) {
+            return IDENTITY;
+        }
+        Map<Class<?>, Function<Object, Object>> bySource = converters.getOrDefault(targetType, Collections.emptyMap());
+        // Breadth-first over superclasses and interfaces, so the most specific registration wins
+        Deque<Class<?>> pending = new ArrayDeque<>();
+        Set<Class<?>> seen = new HashSet<>();
+        pending.add(sourceType);
+        while (!pending.isEmpty()) {
+            Class<?> type = pending.poll();
+            if (!seen.add(type)) {
+                continue;
+            }
+            Function<Object, Object> converter = bySource.get(type);
+            if (converter != null) {
+                return converter;
+            }
+            if (type.getSuperclass() != null) {
+                pending.add(type.getSuperclass());
+            }
+            Collections.addAll(pending, type.getInterfaces());
+        }
+        return bySource.get(Object.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void register(ColumnConverter<?, ?> converter) {
+        ColumnConverter<Object, Object> typed = (ColumnConverter<Object, Object>) converter;
+        converters.computeIfAbsent(wrap(converter.targetType()), key -> new HashMap<>())
+                .put(converter.sourceType(), typed::convert);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <S, T> void register(Class<S> sourceType, Class<T> targetType, Function<? super S, ? extends T> converter) {
+        converters.computeIfAbsent(targetType, key -> new HashMap<>())
+                .put(sourceType, value -> converter.apply((S) value));
+    }
+
+    private void registerDefaults() {
+        register(Object.class, String.class, Object::toString);
+
+        register(Number.class, Long.class, Number::longValue);
+        register(Number.class, Integer.class, Number::intValue);
+        register(Number.class, Short.class, Number::shortValue);
+        register(Number.class, Byte.class, Number::byteValue);
+        register(Number.class, Double.class, Number::doubleValue);
+        register(Number.class, Float.class, Number::floatValue);
+        register(Number.class, BigDecimal.class, value -> new BigDecimal(value.toString()));
+        register(Number.class, BigInteger.class, value -> value instanceof BigDecimal
+                ? ((BigDecimal) value).toBigInteger() : BigInteger.valueOf(value.longValue()));
+        register(Number.class, Boolean.class, value -> value.longValue() != 0);
+
+        register(String.class, Long.class, value -> Long.valueOf(value.trim()));
+        register(String.class, Integer.class, value -> Integer.valueOf(value.trim()));
+        register(String.class, Short.class, value -> Short.valueOf(value.trim()));
+        register(String.class, Double.class, value -> Double.valueOf(value.trim()));
+        register(String.class, Float.class, value -> Float.valueOf(value.trim()));
+        register(String.class, BigDecimal.class, value -> new BigDecimal(value.trim()));
+        register(String.class, BigInteger.class, value -> new BigInteger(value.trim()));
+        register(String.class, Boolean.class, ConverterRegistry::parseBoolean);
+        register(String.class, UUID.class, value -> UUID.fromString(value.trim()));
+        register(String.class, LocalDate.class, value -> LocalDate.parse(value.trim()));
+        register(String.class, LocalDateTime.class, value -> LocalDateTime.parse(value.trim()));
+        register(String.class, Instant.class, value -> Instant.parse(value.trim()));
+
+        // DATE, TIME and TIMESTAMP columns; local values stay in the JVM time zone the driver read them in
+        register(java.sql.Date.class, LocalDate.class, java.sql.Date::toLocalDate);
+        register(java.sql.Date.class, LocalDateTime.class, value -> value.toLocalDate().atStartOfDay());
+        register(java.sql.Date.class, Instant.class,
+                value -> value.toLocalDate().atStartOfDay(ZoneId.systemDefault()).toInstant());
+        register(Time.class, LocalTime.class, Time::toLocalTime);
+        register(Timestamp.class, LocalDateTime.class, Timestamp::toLocalDateTime);
+        register(Timestamp.class, LocalDate.class, value -> value.toLocalDateTime().toLocalDate());
+        register(Timestamp.class, Instant.class, Timestamp::toInstant);
+        register(Timestamp.class, OffsetDateTime.class, value -> value.toInstant().atOffset(ZoneOffset.UTC));
+        register(java.util.Date.class, Instant.class, value -> Instant.ofEpochMilli(value.getTime()));
+        register(OffsetDateTime.class, Instant.class, OffsetDateTime::toInstant);
+        register(OffsetDateTime.class, LocalDateTime.class, OffsetDateTime::toLocalDateTime);
+        register(LocalDateTime.class, LocalDate.class, LocalDateTime::toLocalDate);
+    }
+
+    private static Boolean parseBoolean(String value) {
+        switch (value.trim().toLowerCase()) {
+            case "true":
+            case "t":
+            case "yes":
+            case "y":
+            case "1":
+                return Boolean.TRUE;
+            default:
+                return Boolean.FALSE;
+        }
+    }
+
+    private static ColumnConverter<?, ?> instantiate(String className) {
+        try {
+            Object converter = Class.forName(className).getConstructor().newInstance();
+            if (!(converter instanceof ColumnConverter)) {
+                throw new IllegalArgumentException(className + " does not implement " + ColumnConverter.class.getName());
+            }
+            return (ColumnConverter<?, ?>) converter;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Cannot create converter " + className, e);
+        }
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return type;
+        } else if (type == long.class) {
+            return Long.class;
+        } else if (type == int.class) {
+            return Integer.class;
+        } else if (type == double.class) {
+            return Double.class;
+        } else if (type == float.class) {
+            return Float.class;
+        } else if (type == boolean.class) {
+            return Boolean.class;
+        } else if (type == short.class) {
+            return Short.class;
+        } else if (type == byte.class) {
+            return Byte.class;
+        } else if (type == char.class) {
+            return Character.class;
+        }
+        return Void.class;
+    }
+}
@@ -0,0 +1,188 @@
+package com.dbtojson;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+/**
+ * Bulk-writes generated JSON on PostgreSQL: (primary key, JSON) pairs are streamed with COPY into a
+ * staging table, then applied to the target with one set-based UPDATE ... FROM per commit interval.
+ * The staging table is a session-local temporary table, which like an UNLOGGED table bypasses WAL;
+ * being per session, parallel partitions never see each other's rows.
+ */
+public class CopyJsonWriter implements JsonRowWriter {
+
+    private static final int COPY_BUFFER_SIZE = 256 * 1024;
+
+    private final Connection conn;
+    private final String stagingTable;
+    private final String copySql;
+    private final String mergeSql;
+    private final int commitInterval;
+    private final boolean hashed;
+    private final ModuleStats stats;
+
+    private byte[] copyBuffer = new byte[COPY_BUFFER_SIZE];
+    private CopyIn copyIn;
+    private int copyBufferLength;
+    private int uncommitted;
+    private long rowsWritten;
+    private long rowsAffected;
+
+    /**
+     * @param conn A PostgreSQL connection to write on; autocommit is switched off.
+     * @param moduleConfig The module settings; targetTable, jsonColumn and primaryKey are required.
+     * @param stats Receives batch sizes, batch latencies and round trips.
+     */
+    public CopyJsonWriter(Connection conn, ModuleConfig moduleConfig, ModuleStats stats) throws SQLException {
+        String targetTable = moduleConfig.getTargetTable();
+        String jsonColumn = moduleConfig.getJsonColumn();
+        String primaryKey = moduleConfig.getPrimaryKey();
+        if (targetTable == null || jsonColumn == null || primaryKey == null) {
+            throw new IllegalArgumentException("Module '" + moduleConfig.getName()
+                    + "' needs targetTable, jsonColumn and primaryKey for the copy write strategy.");
+        }
+
+        String hashColumn = moduleConfig.getHashColumn();
+        this.conn = conn;
+        this.stats = stats;
+        this.commitInterval = Math.max(1, moduleConfig.getCommitInterval());
+        this.hashed = hashColumn != null;
+        this.stagingTable = "dbtojson_stage_" + moduleConfig.getName().replaceAll("\\W", "_") + (hashed ? "_hashed" : "");
+        this.copySql = "COPY " + stagingTable + (hashed ? " (pk, json, hash)" : " (pk, json)") + " FROM STDIN";
+        this.mergeSql = "UPDATE " + targetTable + " t SET " + jsonColumn + " = s.json"
+                + (hashed ? ", " + hashColumn + " = s.hash" : "")
+                + " FROM " + stagingTable + " s WHERE t." + primaryKey + " = s.pk";
+
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            // Copy the column types from the target; rows vanish on every commit
+            stmt.execute("CREATE TEMP TABLE IF NOT EXISTS " + stagingTable + " ON COMMIT DELETE ROWS AS SELECT "
+                    + primaryKey + " AS pk, " + jsonColumn + " AS json"
+                    + (hashed ? ", " + hashColumn + " AS hash" : "")
+                    + " FROM " + targetTable + " WITH NO DATA");
+        }
+        conn.commit();
+    }
+
+    @Override
+    public void write(Object primaryKey, JsonBuffer json, long hash) throws SQLException {
+        // COPY text format: key TAB json [TAB hash] NEWLINE
+        byte[] key = primaryKey.toString().getBytes(StandardCharsets.UTF_8);
+        ensureCapacity(2 * (key.length + json.size()) + 24);
+        appendEscaped(key, key.length);
+        copyBuffer[copyBufferLength++] = '\t';
+        appendEscaped(json.array(), json.size());
+        if (hashed) {
+            copyBuffer[copyBufferLength++] = '\t';
+            String hashText = Long.toString(hash);
+            for (int i = 0; i < hashText.length(); i++) {
+                copyBuffer[copyBufferLength++] = (byte) hashText.charAt(i);
+            }
+        }
+        copyBuffer[copyBufferLength++] = '\n';
+        rowsWritten++;
+
+        if (++uncommitted >= commitInterval) {
+            flush();
+        }
+    }
+
+    @Override
+    public void flush() throws SQLException {
+        if (uncommitted == 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        sendCopyBuffer();
+        copyIn.endCopy();
+        copyIn = null;
+
+        try (Statement stmt = conn.createStatement()) {
+            rowsAffected += stmt.executeUpdate(mergeSql);
+        }
+        conn.commit();
+        stats.recordBatch(uncommitted, System.nanoTime() - start);
+        // Starting and ending the COPY, the merge and the commit
+        stats.addRoundTrips(4);
+        uncommitted = 0;
+    }
+
+    @Override
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    @Override
+    public long getRowsAffected() {
+        return rowsAffected;
+    }
+
+    /**
+     * Cancels an open COPY and rolls back rows not flushed.
+     */
+    @Override
+    public void close() throws SQLException {
+        try {
+            if (copyIn != null && copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        } finally {
+            copyIn = null;
+            if (uncommitted > 0) {
+                conn.rollback();
+            }
+        }
+    }
+
+    private void ensureCapacity(int needed) throws SQLException {
+        if (copyBufferLength + needed > copyBuffer.length) {
+            sendCopyBuffer();
+        }
+        if (needed > copyBuffer.length) {
+            copyBuffer = new byte[needed];
+        }
+    }
+
+    /**
+     * Appends bytes with backslash and the COPY delimiter characters escaped.
+     */
+    private void appendEscaped(byte[] bytes, int length) {
+        for (int i = 0; i < length; i++) {
+            byte b = bytes[i];
+            switch (b) {
+                case '\\':
+                    copyBuffer[copyBufferLength++] = '\\';
+                    copyBuffer[copyBufferLength++] = '\\';
+                    break;
+                case '\n':
+                    copyBuffer[copyBufferLength++] = '\\';
+                    copyBuffer[copyBufferLength++] = 'n';
+                    break;
+                case '\r':
+                    copyBuffer[copyBufferLength++] = '\\';
+                    copyBuffer[copyBufferLength++] = 'r';
+                    break;
+                case '\t':
+                    copyBuffer[copyBufferLength++] = '\\';
+                    copyBuffer[copyBufferLength++] = 't';
+                    break;
+                default:
+                    copyBuffer[copyBufferLength++] = b;
+            }
+        }
+    }
+
+    private void sendCopyBuffer() throws SQLException {
+        if (copyIn == null) {
+            copyIn = conn.unwrap(PGConnection.class).getCopyAPI().copyIn(copySql);
+        }
+        if (copyBufferLength > 0) {
+            copyIn.writeToCopy(copyBuffer, 0, copyBufferLength);
+            copyBufferLength = 0;
+        }
+    }
+}
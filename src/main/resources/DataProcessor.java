@@ -1,66 +1,298 @@
 package com.dbtojson;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.sql.DataSource;
 
 public class DataProcessor {
 
+    /**
+     * Runs every configured module once. With --continuous, the modules that have a changeQueueTable are
+     * instead kept current from their change queues until the process is stopped. With --warmup, the modules
+     * are only prepared, without connecting to the database (see {@link #warmUp}).
+     */
     public static void main(String[] args) {
         System.out.println("Starting modular data processing...");
         String configFileName = "config.properties";
+        Instant startedAt = Instant.now();
+        long start = System.currentTimeMillis();
 
+        List<ModuleResult> results = new ArrayList<>();
         try {
             Properties config = readConfig(configFileName);
             String[] modules = config.getProperty("modules").split(",");
-            String commonDbUrl = config.getProperty("dbUrl");
-            String commonDbUser = config.getProperty("dbUser");
-            String commonDbPassword = config.getProperty("dbPassword");
-            String commonDbDriver = config.getProperty("dbDriver");
 
+            List<ModuleConfig> moduleConfigs = new ArrayList<>();
             for (String module : modules) {
-                String moduleName = module.trim();
-                System.out.println("\n--- Processing module: " + moduleName + " ---");
-
-                String fetchSql = config.getProperty(moduleName + ".fetchSql");
-                String updateSql = config.getProperty(moduleName + ".updateSql");
-                String dtoClassName = config.getProperty(moduleName + ".dtoClass");
+                ModuleConfig moduleConfig = ModuleConfig.from(config, module);
 
-                if (fetchSql == null || updateSql == null || dtoClassName == null) {
-                    System.err.println("Skipping module '" + moduleName + "' due to missing configuration.");
+                if (!moduleConfig.isComplete()) {
+                    System.err.println("Skipping module '" + moduleConfig.getName() + "' due to missing configuration.");
                     continue;
                 }
+                moduleConfigs.add(moduleConfig);
+            }
 
-                // Dynamically load the DTO class using reflection
-                Class<?> dtoClass = Class.forName(dtoClassName);
-                
-                // Create a new GenericDataProcessor and process the data for this module
-                GenericDataProcessor<?> processor = new GenericDataProcessor<>();
-                processor.processData(
-                    commonDbUrl, 
-                    commonDbUser, 
-                    commonDbPassword, 
-                    commonDbDriver, 
-                    fetchSql, 
-                    updateSql, 
-                    dtoClass
-                );
+            if (Arrays.asList(args).contains("--warmup")) {
+                warmUp(config, moduleConfigs);
+                return;
+            }
+            if (Arrays.asList(args).contains("--continuous")) {
+                runContinuous(config, moduleConfigs);
+                return;
             }
+
+            // Higher priority modules are queued first; equal priorities keep the order of the 'modules' list
+            moduleConfigs.sort(Comparator.comparingInt(ModuleConfig::getPriority).reversed());
+
+            int maxParallelModules = Math.max(1, ModuleConfig.globalIntSetting(config, "maxParallelModules", 1));
+            try (HikariDataSource dataSource = createDataSource(config,
+                    requiredConnections(moduleConfigs, maxParallelModules))) {
+                results = runModules(dataSource, moduleConfigs, maxParallelModules);
+            }
+            writeReports(config, new RunReport(startedAt, System.currentTimeMillis() - start, results));
         } catch (Exception e) {
             System.err.println("An error occurred during data processing:");
             e.printStackTrace();
+            System.exit(1);
+        }
+
+        System.out.println("\n--- Run summary ---");
+        results.forEach(System.out::println);
+        if (results.stream().anyMatch(result -> !result.isSuccess())) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs the modules on a bounded pool of maxParallelModules threads, in the given order.
+     * A failing module is reported in its result and does not stop the others.
+     * @return One result per module, in the given order.
+     */
+    private static List<ModuleResult> runModules(HikariDataSource dataSource, List<ModuleConfig> moduleConfigs,
+                                                 int maxParallelModules) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(maxParallelModules);
+        try {
+            List<Future<ModuleResult>> futures = new ArrayList<>();
+            for (ModuleConfig moduleConfig : moduleConfigs) {
+                futures.add(executor.submit(() -> runModule(dataSource, moduleConfig,
+                        new ModuleStats(moduleConfig.getLogSampleRate()))));
+            }
+
+            List<ModuleResult> results = new ArrayList<>();
+            for (Future<ModuleResult> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    // runModule reports its own failures; this only happens on errors such as OutOfMemoryError
+                    throw new IllegalStateException("Module task failed unexpectedly", e.getCause());
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Goes through the startup path of a run without a database: loads the JDBC driver and connection pool
+     * classes, and every module's DTO, generated mapper and converter classes, and serializes one DTO per
+     * module. It is the training run for the AppCDS archive and what the startup benchmarks measure.
+     */
+    private static void warmUp(Properties config, List<ModuleConfig> moduleConfigs) throws Exception {
+        long start = System.nanoTime();
+        Class.forName(config.getProperty("dbDriver"));
+        new HikariConfig();
+        for (ModuleConfig moduleConfig : moduleConfigs) {
+            Class<?> dtoClass = Class.forName(moduleConfig.getDtoClassName());
+            ConverterRegistry.withConverters(moduleConfig.getConverters());
+            new GenericDataProcessor<>().warmUp(dtoClass);
+        }
+        System.out.println("Warm-up of " + moduleConfigs.size() + " modules completed in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms.");
+    }
+
+    /**
+     * Refreshes the modules with a changeQueueTable from their change queues, one worker thread per module,
+     * until the JVM shuts down; on shutdown every worker commits its current batch before the pool is closed.
+     */
+    private static void runContinuous(Properties config, List<ModuleConfig> moduleConfigs) throws InterruptedException {
+        List<ModuleConfig> modules = new ArrayList<>();
+        for (ModuleConfig moduleConfig : moduleConfigs) {
+            if (moduleConfig.getChangeQueueTable() != null) {
+                modules.add(moduleConfig);
+            }
+        }
+        if (modules.isEmpty()) {
+            System.err.println("No module has a changeQueueTable; nothing to refresh continuously.");
+            return;
+        }
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Thread> workers = new ArrayList<>();
+        // Every worker holds a listening, a reading and a writing connection
+        try (HikariDataSource dataSource = createDataSource(config, modules.size() * 3, modules.size() * 3)) {
+            for (ModuleConfig moduleConfig : modules) {
+                Thread worker = new Thread(() -> {
+                    try {
+                        Class<?> dtoClass = Class.forName(moduleConfig.getDtoClassName());
+                        new GenericDataProcessor<>().processChanges(dataSource, moduleConfig, dtoClass,
+                                new ModuleStats(moduleConfig.getLogSampleRate()), running);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (Exception e) {
+                        System.err.println("[" + moduleConfig.getName() + "] Continuous refresh stopped: " + e.getMessage());
+                        e.printStackTrace();
+                    }
+                }, "dbtojson-" + moduleConfig.getName());
+                workers.add(worker);
+                worker.start();
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                running.set(false);
+                for (Thread worker : workers) {
+                    try {
+                        worker.join();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }));
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        }
+    }
+
+    /**
+     * Processes one module. A failure is reported in the result instead of being thrown.
+     * @param dataSource The connection pool; the module holds two connections per worker.
+     * @param moduleConfig The module settings.
+     * @param stats Receives the module's counters while it runs, so callers can report progress.
+     * @return The outcome of the module.
+     */
+    public static ModuleResult runModule(DataSource dataSource, ModuleConfig moduleConfig, ModuleStats stats) {
+        String moduleName = moduleConfig.getName();
+        System.out.println("\n--- Processing module: " + moduleName + " ---");
+        long start = System.currentTimeMillis();
+        try {
+            // Dynamically load the DTO class using reflection
+            Class<?> dtoClass = Class.forName(moduleConfig.getDtoClassName());
+
+            // Create a new GenericDataProcessor and process the data for this module
+            GenericDataProcessor<?> processor = new GenericDataProcessor<>();
+            return processor.processData(dataSource, moduleConfig, dtoClass, stats);
+        } catch (Exception e) {
+            System.err.println("[" + moduleName + "] Module failed: " + e.getMessage());
+            e.printStackTrace();
+            stats.finish();
+            return ModuleResult.failed(moduleName, stats, System.currentTimeMillis() - start, e);
         }
     }
 
     /**
-     * Reads properties from the classpath.
-     * @param fileName The name of the properties file on the classpath.
+     * Writes the run report to the files named by runReport and prometheusFile, if set.
+     * A report that cannot be written is reported but does not fail the run.
+     */
+    private static void writeReports(Properties config, RunReport report) {
+        String runReport = config.getProperty("runReport", "").trim();
+        String prometheusFile = config.getProperty("prometheusFile", "").trim();
+        try {
+            if (!runReport.isEmpty()) {
+                report.writeJson(Paths.get(runReport));
+                System.out.println("Run report written to " + runReport);
+            }
+            if (!prometheusFile.isEmpty()) {
+                report.writePrometheus(Paths.get(prometheusFile));
+                System.out.println("Prometheus metrics written to " + prometheusFile);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not write the run report: " + e.getMessage());
+        }
+    }
+
+    /**
+     * The connections the modules need when the maxParallelModules most demanding ones run at the same time:
+     * every partition worker holds a reader and a writer connection, and the key ranges are computed on one more.
+     */
+    private static int requiredConnections(List<ModuleConfig> moduleConfigs, int maxParallelModules) {
+        return moduleConfigs.stream()
+                .mapToInt(moduleConfig -> Math.max(1, moduleConfig.getPartitions()) * 2 + 1)
+                .boxed()
+                .sorted(Comparator.reverseOrder())
+                .limit(maxParallelModules)
+                .mapToInt(Integer::intValue)
+                .sum();
+    }
+
+    private static HikariDataSource createDataSource(Properties config, int requiredPoolSize) {
+        return createDataSource(config, requiredPoolSize, requiredPoolSize);
+    }
+
+    /**
+     * Creates the connection pool shared by all modules.
+     * @param defaultPoolSize The size unless poolSize is set.
+     * @param requiredPoolSize The connections the modules hold at the same time; a smaller poolSize is rejected,
+     *                         as the workers would wait on each other for connections until the pool times out.
+     */
+    private static HikariDataSource createDataSource(Properties config, int defaultPoolSize, int requiredPoolSize) {
+        int poolSize = ModuleConfig.globalIntSetting(config, "poolSize", defaultPoolSize);
+        if (poolSize < requiredPoolSize) {
+            throw new IllegalArgumentException("poolSize " + poolSize + " is too small: the modules running at the same"
+                    + " time need " + requiredPoolSize + " connections (partitions x 2 + 1 per module).");
+        }
+
+        String dbUrl = config.getProperty("dbUrl");
+
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setPoolName("dbtojson");
+        hikariConfig.setJdbcUrl(dbUrl);
+        hikariConfig.setUsername(config.getProperty("dbUser"));
+        hikariConfig.setPassword(config.getProperty("dbPassword"));
+        hikariConfig.setDriverClassName(config.getProperty("dbDriver"));
+        hikariConfig.setMaximumPoolSize(poolSize);
+        if (dbUrl.startsWith("jdbc:postgresql:")) {
+            hikariConfig.addDataSourceProperty("reWriteBatchedInserts", "true");
+        }
+        return new HikariDataSource(hikariConfig);
+    }
+
+    /**
+     * Reads properties from a file, or from the classpath if there is no such file.
+     * @param fileName The path of the properties file, or its name on the classpath.
      * @return A Properties object containing the configuration.
      * @throws IOException If the file cannot be read.
      */
-    private static Properties readConfig(String fileName) throws IOException {
+    public static Properties readConfig(String fileName) throws IOException {
         Properties prop = new Properties();
-        try (InputStream input = ClassLoader.getSystemResourceAsStream(fileName)) {
+        Path file = Paths.get(fileName);
+        if (Files.isRegularFile(file)) {
+            try (InputStream input = Files.newInputStream(file)) {
+                prop.load(input);
+            }
+            return prop;
+        }
+        // The context class loader also sees the resources of an application hosting the processor
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        try (InputStream input = classLoader != null ? classLoader.getResourceAsStream(fileName)
+                : ClassLoader.getSystemResourceAsStream(fileName)) {
             if (input == null) {
                 throw new IOException("Resource not found on classpath: " + fileName);
             }
@@ -0,0 +1,315 @@
+package com.dbtojson;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes a row straight to a JsonGenerator, producing the same properties, in the same order, as serializing the DTO.
+ * The plan is derived from the DTO's @JsonProperty fields: each field is bound to the column whose
+ * snake_case name matches the field name, the same rule the DTO setters are matched by.
+ * No DTO instance, map or intermediate String is created per row.
+ * <p>
+ * Values are written from the column value as the field's JSON type, e.g. a NUMERIC column of a double field as
+ * its double value. This matches the DTO path's built-in conversions, but not the module's custom converters,
+ * so modules with converters are mapped through the DTO in auto mode.
+ * The same plan can be rendered as a PostgreSQL expression, so the JSON is built inside the database instead.
+ */
+public final class DirectJsonPlan {
+
+    private static final int WRITE_STRING = 0;
+    private static final int WRITE_LONG = 1;
+    private static final int WRITE_DOUBLE = 2;
+    private static final int WRITE_FLOAT = 3;
+    private static final int WRITE_DECIMAL = 4;
+    private static final int WRITE_BOOLEAN = 5;
+    /** jsonb_build_object takes at most 100 arguments. */
+    private static final int PAIRS_PER_BUILD = 50;
+
+    private final SerializedString[] names;
+    private final int[] indexes;
+    private final int[] writeKinds;
+    private final boolean[] primitives;
+    private final boolean omitNulls;
+
+    private DirectJsonPlan(SerializedString[] names, int[] indexes, int[] writeKinds, boolean[] primitives, boolean omitNulls) {
+        this.names = names;
+        this.indexes = indexes;
+        this.writeKinds = writeKinds;
+        this.primitives = primitives;
+        this.omitNulls = omitNulls;
+    }
+
+    /**
+     * Builds the plan for a DTO class and the fetched columns.
+     * @param dtoClass The DTO class.
+     * @param schema The schema of the rows to write.
+     * @param problems Receives the reasons the DTO cannot be written directly.
+     * @return The plan, or null if any @JsonProperty field cannot be written directly.
+     */
+    public static DirectJsonPlan compile(Class<?> dtoClass, RowSchema schema, List<String> problems) {
+        List<Field> fields = jsonFields(dtoClass);
+        if (fields.isEmpty()) {
+            problems.add(dtoClass.getSimpleName() + " has no @JsonProperty fields");
+            return null;
+        }
+
+        SerializedString[] names = new SerializedString[fields.size()];
+        int[] indexes = new int[fields.size()];
+        int[] writeKinds = new int[fields.size()];
+        boolean[] primitives = new boolean[fields.size()];
+
+        for (int i = 0; i < fields.size(); i++) {
+            Field field = fields.get(i);
+            String property = field.getAnnotation(JsonProperty.class).value();
+            names[i] = new SerializedString(property.isEmpty() ? field.getName() : property);
+            indexes[i] = schema.indexOf(toSnakeCase(field.getName()));
+            primitives[i] = field.getType().isPrimitive();
+            writeKinds[i] = writeKindFor(field.getType());
+
+            if (writeKinds[i] < 0) {
+                problems.add("field " + field.getName() + " of type " + field.getType().getSimpleName() + " is not supported");
+            } else if (indexes[i] >= 0 && writeKinds[i] != WRITE_STRING && writeKinds[i] != WRITE_BOOLEAN
+                    && !isNumeric(schema.getJdbcType(indexes[i]))) {
+                problems.add("column " + schema.getColumn(indexes[i]) + " is not numeric for field " + field.getName());
+            }
+        }
+        if (!problems.isEmpty()) {
+            return null;
+        }
+
+        JsonInclude include = dtoClass.getAnnotation(JsonInclude.class);
+        boolean omitNulls = include != null && include.value() == JsonInclude.Include.NON_NULL;
+        return new DirectJsonPlan(names, indexes, writeKinds, primitives, omitNulls);
+    }
+
+    /**
+     * Writes one row as a JSON object.
+     * @param row The row to write.
+     * @param generator The generator to write to.
+     */
+    public void write(Row row, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        for (int i = 0; i < names.length; i++) {
+            int index = indexes[i];
+            if (index < 0 || row.isNull(index)) {
+                if (primitives[i]) {
+                    // A primitive DTO field keeps its default value when the column is NULL
+                    generator.writeFieldName(names[i]);
+                    writeDefault(generator, writeKinds[i]);
+                } else if (!omitNulls) {
+                    generator.writeFieldName(names[i]);
+                    generator.writeNull();
+                }
+                continue;
+            }
+
+            generator.writeFieldName(names[i]);
+            switch (writeKinds[i]) {
+                case WRITE_LONG:
+                    generator.writeNumber(row.getLong(index));
+                    break;
+                case WRITE_DOUBLE:
+                    generator.writeNumber(row.getDouble(index));
+                    break;
+                case WRITE_FLOAT:
+                    generator.writeNumber((float) row.getDouble(index));
+                    break;
+                case WRITE_DECIMAL: {
+                    Object value = row.get(index);
+                    generator.writeNumber(value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString()));
+                    break;
+                }
+                case WRITE_BOOLEAN: {
+                    Object value = row.get(index);
+                    generator.writeBoolean(value instanceof Boolean ? (Boolean) value : Boolean.parseBoolean(value.toString()));
+                    break;
+                }
+                default:
+                    generator.writeString(row.get(index).toString());
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Renders the plan as a PostgreSQL jsonb expression producing the same properties as {@link #write}.
+     * Values are cast the way the generator writes them: text for strings (in PostgreSQL's text form,
+     * e.g. for timestamps), bigint truncating fractions for integral fields, and so on.
+     * @param schema The schema the plan was compiled for.
+     * @param alias The alias of the fetch query's rows in the statement.
+     * @return The expression.
+     */
+    public String toJsonbSql(RowSchema schema, String alias) {
+        List<String> builds = new ArrayList<>();
+        StringBuilder build = new StringBuilder();
+        for (int i = 0; i < names.length; i++) {
+            if (i % PAIRS_PER_BUILD == 0) {
+                if (i > 0) {
+                    builds.add(build.append(')').toString());
+                }
+                build = new StringBuilder("jsonb_build_object(");
+            } else {
+                build.append(", ");
+            }
+            build.append(quoteLiteral(names[i].getValue())).append(", ");
+
+            int index = indexes[i];
+            if (index < 0) {
+                build.append(primitives[i] ? defaultSql(writeKinds[i]) : "NULL");
+                continue;
+            }
+            String column = alias + "." + quoteIdentifier(schema.getColumn(index));
+            String value;
+            switch (writeKinds[i]) {
+                case WRITE_LONG:
+                    value = isIntegral(schema.getJdbcType(index)) ? column + "::bigint" : "trunc(" + column + ")::bigint";
+                    break;
+                case WRITE_DOUBLE:
+                    value = column + "::double precision";
+                    break;
+                case WRITE_FLOAT:
+                    value = column + "::real";
+                    break;
+                case WRITE_DECIMAL:
+                    value = column + "::numeric";
+                    break;
+                case WRITE_BOOLEAN:
+                    value = column + "::boolean";
+                    break;
+                default:
+                    value = column + "::text";
+            }
+            build.append(primitives[i] ? "COALESCE(" + value + ", " + defaultSql(writeKinds[i]) + ")" : value);
+        }
+        builds.add(build.append(')').toString());
+
+        String document = String.join(" || ", builds);
+        // Like @JsonInclude(NON_NULL), drop the properties whose value is NULL
+        return omitNulls ? "jsonb_strip_nulls(" + document + ")" : document;
+    }
+
+    private static String defaultSql(int writeKind) {
+        switch (writeKind) {
+            case WRITE_LONG:
+                return "0";
+            case WRITE_DOUBLE:
+            case WRITE_FLOAT:
+                return "0.0";
+            case WRITE_BOOLEAN:
+                return "false";
+            default:
+                return "NULL";
+        }
+    }
+
+    private static String quoteLiteral(String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
+
+    private static String quoteIdentifier(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+
+    private static void writeDefault(JsonGenerator generator, int writeKind) throws IOException {
+        switch (writeKind) {
+            case WRITE_LONG:
+                generator.writeNumber(0);
+                break;
+            case WRITE_DOUBLE:
+                generator.writeNumber(0d);
+                break;
+            case WRITE_FLOAT:
+                generator.writeNumber(0f);
+                break;
+            case WRITE_BOOLEAN:
+                generator.writeBoolean(false);
+                break;
+            default:
+                generator.writeNull();
+        }
+    }
+
+    private static List<Field> jsonFields(Class<?> dtoClass) {
+        List<Field> fields = new ArrayList<>();
+        if (dtoClass.getSuperclass() != null && dtoClass.getSuperclass() != Object.class) {
+            fields.addAll(jsonFields(dtoClass.getSuperclass()));
+        }
+        for (Field field : dtoClass.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers())
+                    && field.isAnnotationPresent(JsonProperty.class)
+                    && !field.isAnnotationPresent(JsonIgnore.class)) {
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    private static int writeKindFor(Class<?> type) {
+        if (type == String.class) {
+            return WRITE_STRING;
+        } else if (type == Long.class || type == long.class || type == Integer.class || type == int.class
+                || type == Short.class || type == short.class) {
+            return WRITE_LONG;
+        } else if (type == Double.class || type == double.class) {
+            return WRITE_DOUBLE;
+        } else if (type == Float.class || type == float.class) {
+            return WRITE_FLOAT;
+        } else if (type == BigDecimal.class) {
+            return WRITE_DECIMAL;
+        } else if (type == Boolean.class || type == boolean.class) {
+            return WRITE_BOOLEAN;
+        }
+        return -1;
+    }
+
+    private static boolean isNumeric(int jdbcType) {
+        switch (jdbcType) {
+            case Types.BIGINT:
+            case Types.INTEGER:
+            case Types.SMALLINT:
+            case Types.TINYINT:
+            case Types.DOUBLE:
+            case Types.FLOAT:
+            case Types.REAL:
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isIntegral(int jdbcType) {
+        switch (jdbcType) {
+            case Types.BIGINT:
+            case Types.INTEGER:
+            case Types.SMALLINT:
+            case Types.TINYINT:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static String toSnakeCase(String camelCase) {
+        StringBuilder snakeCaseBuilder = new StringBuilder();
+        for (char c : camelCase.toCharArray()) {
+            if (Character.isUpperCase(c)) {
+                snakeCaseBuilder.append('_').append(Character.toLowerCase(c));
+            } else {
+                snakeCaseBuilder.append(c);
+            }
+        }
+        return snakeCaseBuilder.toString();
+    }
+}
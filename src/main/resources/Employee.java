@@ -1,11 +1,18 @@
 package com.dbtojson.model;
 
+import com.dbtojson.mapping.IncludeIf;
+import com.dbtojson.mapping.Nested;
+import com.dbtojson.mapping.RowMapped;
+import com.dbtojson.mapping.Split;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
+/**
+ * Rows are mapped by the generated EmployeeRowMapper: the phone column is split into a list, street, city
+ * and zip_code form the nested address, and both are only mapped for employees whose active_status is active.
+ */
+@RowMapped
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class Employee {
 
@@ -18,56 +25,20 @@ public class Employee {
     @JsonProperty("employeeAge")
     private Integer employeeAge;
     
+    // Sensitive data is skipped for inactive employees
     @JsonProperty("employeePhone")
+    @IncludeIf(column = "active_status", equalsIgnoreCase = "active")
+    @Split(",")
     private List<String> employeePhone;
 
     @JsonProperty("employeeAddress")
+    @IncludeIf(column = "active_status", equalsIgnoreCase = "active")
+    @Nested
     private Address employeeAddress;
     
     // Add this no-arg constructor to allow instantiation by the GenericDataProcessor
     public Employee() {}
 
-    /**
-     * Factory method to create an Employee object from a database row map.
-     * This method contains the business logic for mapping data.
-     * @param row The database row as a Map.
-     * @return A new Employee object.
-     */
-    public static Employee fromMap(Map<String, Object> row) {
-        Employee employee = new Employee();
-
-        // Check active status
-        Object activeStatusObject = row.get("active_status");
-        String activeStatus = activeStatusObject != null ? String.valueOf(activeStatusObject) : null;
-
-        // Populate basic information first
-        employee.setEmployeeId(row.get("employee_id") != null ? ((Number) row.get("employee_id")).longValue() : null);
-        employee.setEmployeeName((String) row.get("employee_name"));
-        employee.setEmployeeAge(row.get("employee_age") != null ? ((Number) row.get("employee_age")).intValue() : null);
-
-        // Apply business logic to skip sensitive data for inactive employees
-        if (activeStatus == null || !activeStatus.equalsIgnoreCase("active")) {
-            System.out.println("Skipping mapping sensitive data for inactive employee.");
-            return employee; // Return DTO with only basic info
-        }
-
-        // Map employee_phone (string to list)
-        String employeePhoneDb = (String) row.get("employee_phone");
-        if (employeePhoneDb != null && !employeePhoneDb.isEmpty()) {
-            List<String> phoneNumbers = Arrays.asList(employeePhoneDb.split(","));
-            employee.setEmployeePhone(phoneNumbers);
-        }
-
-        // Map nested Address object
-        Address address = new Address();
-        address.setStreet((String) row.get("street"));
-        address.setCity((String) row.get("city"));
-        address.setZipCode((String) row.get("zip_code"));
-        employee.setEmployeeAddress(address);
-
-        return employee;
-    }
-
     public void setEmployeeId(Long employeeId) {
         this.employeeId = employeeId;
     }
@@ -0,0 +1,149 @@
+package com.dbtojson;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The files of one module export. Every worker's writer takes a partition number and adds each file it finishes;
+ * once the module has succeeded, manifest.json is written next to the files. Downstream loads should only pick up
+ * the files listed in a manifest: a failed run leaves its files behind without one.
+ */
+public class ExportManifest {
+
+    private final String module;
+    private final Path directory;
+    private final ModuleConfig.ExportCompression compression;
+    private final Instant startedAt = Instant.now();
+    private final AtomicInteger partitions = new AtomicInteger();
+    private final List<ExportFile> files = new ArrayList<>();
+
+    /**
+     * Creates the module's export directory, &lt;exportDir&gt;/&lt;module&gt;, and removes its previous manifest.
+     */
+    public ExportManifest(ModuleConfig moduleConfig) throws IOException {
+        this.module = moduleConfig.getName();
+        this.directory = Paths.get(moduleConfig.getExportDir(), module).toAbsolutePath();
+        this.compression = moduleConfig.getExportCompression();
+        Files.createDirectories(directory);
+        Files.deleteIfExists(directory.resolve("manifest.json"));
+    }
+
+    public String getModule() {
+        return module;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    int nextPartition() {
+        return partitions.getAndIncrement();
+    }
+
+    synchronized void add(ExportFile file) {
+        files.add(file);
+    }
+
+    /**
+     * @return The files finished so far.
+     */
+    public synchronized List<ExportFile> getFiles() {
+        return new ArrayList<>(files);
+    }
+
+    /**
+     * Writes manifest.json, listing the files by partition and sequence, with the total row count.
+     */
+    public void write() throws IOException {
+        List<ExportFile> sorted = getFiles();
+        sorted.sort(Comparator.comparing(ExportFile::getName));
+
+        Map<String, Object> manifest = new LinkedHashMap<>();
+        manifest.put("module", module);
+        manifest.put("format", "ndjson");
+        manifest.put("compression", compression.name().toLowerCase());
+        manifest.put("startedAt", startedAt.toString());
+        manifest.put("finishedAt", Instant.now().toString());
+        manifest.put("rows", sorted.stream().mapToLong(ExportFile::getRows).sum());
+        List<Map<String, Object>> entries = new ArrayList<>();
+        for (ExportFile file : sorted) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("file", file.getName());
+            entry.put("partition", file.getPartition());
+            entry.put("rows", file.getRows());
+            entry.put("uncompressedBytes", file.getUncompressedBytes());
+            entry.put("bytes", file.getBytes());
+            entry.put("sha256", file.getSha256());
+            entries.add(entry);
+        }
+        manifest.put("files", entries);
+
+        Path target = directory.resolve("manifest.json");
+        Path temp = directory.resolve("manifest.json.tmp");
+        Files.write(temp, new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsBytes(manifest));
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * One finished export file.
+     */
+    public static class ExportFile {
+        private final String name;
+        private final int partition;
+        private final long rows;
+        private final long uncompressedBytes;
+        private final long bytes;
+        private final String sha256;
+
+        ExportFile(String name, int partition, long rows, long uncompressedBytes, long bytes, String sha256) {
+            this.name = name;
+            this.partition = partition;
+            this.rows = rows;
+            this.uncompressedBytes = uncompressedBytes;
+            this.bytes = bytes;
+            this.sha256 = sha256;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getPartition() {
+            return partition;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getUncompressedBytes() {
+            return uncompressedBytes;
+        }
+
+        /**
+         * @return The size of the file on disk.
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * @return The hex SHA-256 of the file as stored, so it can be checked with sha256sum.
+         */
+        public String getSha256() {
+            return sha256;
+        }
+    }
+}
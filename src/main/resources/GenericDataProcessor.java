@@ -1,212 +1,840 @@
 package com.dbtojson;
 
-import com.dbtojson.model.Employee;
-import com.dbtojson.model.Employee.Address;
+import com.dbtojson.KeyRangePartitioner.KeyRange;
+import com.dbtojson.ModuleConfig.MappingMode;
+import com.dbtojson.ModuleConfig.WriteStrategy;
+import com.dbtojson.mapping.RowMapped;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.io.IOException;
 import java.lang.reflect.Method;
-import java.math.BigDecimal;
+import java.lang.reflect.Modifier;
+import java.sql.Array;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import javax.sql.DataSource;
 
 /**
  * A generic data processor to fetch data from a database and map it to a DTO
- * using reflection.
+ * using a compiled mapping plan, or write it to JSON directly from the DTO's field plan.
  *
  * @param <T> The DTO class.
  */
 public class GenericDataProcessor<T> {
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
 
-    public void processData(
-            String dbUrl,
-            String dbUser,
-            String dbPassword,
-            String dbDriver,
-            String fetchSql,
-            String updateSql,
-            Class<?> dtoClass) {
+    /**
+     * Fetches the module's rows, maps each to the DTO, generates JSON and writes it back.
+     * With more than one partition configured, the table is split into primary-key ranges processed in parallel.
+     * With keyset pagination, each range is read in pages of ascending key and, given a checkpoint table,
+     * a failed run resumes after the last committed page.
+     * With encode threads configured, every worker reads, encodes and writes in a pipeline.
+     * In push-down mapping mode the JSON is built and written inside the database instead.
+     * With the export write strategy the JSON goes to NDJSON files, one series per worker, and a manifest
+     * listing them is written once the module has succeeded.
+     * Batched updates run under a savepoint per batch; rows of a failed batch are retried one by one and
+     * those that still fail are written to the module's reject file, up to maxRejects rows.
+     * @param dataSource The shared connection pool; every worker holds a reader and a writer connection.
+     * @param moduleConfig The module settings.
+     * @param dtoClass The DTO class rows are mapped to.
+     * @param stats Receives the module's counters and stage metrics, also when it fails.
+     * @return The outcome of the module.
+     * @throws Exception If the module fails; uncommitted writes are rolled back.
+     */
+    public ModuleResult processData(DataSource dataSource, ModuleConfig moduleConfig, Class<?> dtoClass,
+                                    ModuleStats stats) throws Exception {
+        String moduleName = moduleConfig.getName();
+        long start = System.currentTimeMillis();
+        @SuppressWarnings("unchecked")
+        Class<T> targetClass = (Class<T>) dtoClass;
 
+        ExportManifest export = moduleConfig.getWriteStrategy() == WriteStrategy.EXPORT
+                ? new ExportManifest(moduleConfig)
+                : null;
+        RejectLog rejects = moduleConfig.getWriteStrategy() == WriteStrategy.BATCH && moduleConfig.getMaxRejects() > 0
+                ? new RejectLog(moduleConfig, stats)
+                : null;
+        ExecutorService encodePool = moduleConfig.getEncodeThreads() > 0
+                ? Executors.newFixedThreadPool(moduleConfig.getEncodeThreads())
+                : null;
         try {
-            Class.forName(dbDriver);
-        } catch (ClassNotFoundException e) {
-            System.err.println("Database driver not found: " + dbDriver);
-            e.printStackTrace();
-            return;
+            if (export == null && moduleConfig.getMappingMode() == MappingMode.PUSHDOWN
+                    && processPushDown(dataSource, moduleConfig, targetClass, stats)) {
+                // Written inside the database
+            } else if (moduleConfig.isKeysetPagination() || moduleConfig.getPartitions() > 1) {
+                processPartitioned(dataSource, moduleConfig, targetClass, stats, encodePool, export, rejects);
+            } else {
+                processSingle(dataSource, moduleConfig, targetClass, stats, encodePool, export, rejects);
+            }
+        } finally {
+            if (encodePool != null) {
+                encodePool.shutdownNow();
+            }
+            if (rejects != null) {
+                rejects.close();
+            }
+            stats.finish();
+        }
+        if (export != null) {
+            export.write();
+            System.out.println("[" + moduleName + "] Exported " + export.getFiles().size() + " files to "
+                    + export.getDirectory() + ".");
+        }
+
+        System.out.println("[" + moduleName + "] Fetched " + stats.getRowsRead() + " records, wrote " + stats.getRowsWritten()
+                + " JSON documents, skipped " + stats.getRowsSkipped() + " unchanged, updated " + stats.getRowsAffected() + " rows"
+                + (stats.getRowsRejected() > 0 ? ", rejected " + stats.getRowsRejected() + " rows" : "") + ".");
+        if (encodePool != null) {
+            // A blocked reader means encoding or writing is the bottleneck; a waiting writer means reading or encoding is
+            System.out.println("[" + moduleName + "] Pipeline: reader blocked " + stats.getReaderBlockedMillis()
+                    + " ms, writer waited " + stats.getWriterWaitedMillis() + " ms, max queue depth "
+                    + stats.getMaxQueueDepth() + "/" + moduleConfig.getPipelineQueueSize() + " chunks.");
         }
+        System.out.println("[" + moduleName + "] " + stats.getJsonBytes() + " bytes of JSON, "
+                + stats.getRoundTrips() + " JDBC round trips, " + stats.getAllocatedBytes() / (1024 * 1024) + " MB allocated.");
+        System.out.println("[" + moduleName + "] Data processing completed successfully.");
+        return ModuleResult.succeeded(moduleName, stats, System.currentTimeMillis() - start);
+    }
 
-        try (Connection conn = DriverManager.getConnection(dbUrl, dbUser, dbPassword)) {
-            System.out.println("Database connection established successfully.");
+    /**
+     * Processes the whole fetch query as one stream.
+     */
+    private void processSingle(DataSource dataSource, ModuleConfig moduleConfig, Class<T> dtoClass,
+                               ModuleStats stats, ExecutorService encodePool, ExportManifest export,
+                               RejectLog rejects) throws Exception {
+        // Reads and writes use separate connections: the reader keeps a server-side cursor open
+        // inside its transaction, so the writer's periodic commits must happen on another connection.
+        long allocatedAtStart = JvmMetrics.threadAllocatedBytes();
+        try (Connection readConn = dataSource.getConnection();
+             Connection writeConn = export == null ? dataSource.getConnection() : null;
+             JsonRowWriter writer = newWriter(writeConn, moduleConfig, stats, export, rejects);
+             RowPipeline pipeline = newPipeline(encodePool, moduleConfig, stats)) {
+            System.out.println("[" + moduleConfig.getName() + "] Database connections acquired from pool.");
 
-            // Step 1: Fetch data from the database as a list of maps
-            List<Map<String, Object>> fetchedData = fetch(conn, fetchSql);
-            System.out.println("Fetched " + fetchedData.size() + " records.");
+            StreamState state = new StreamState(moduleConfig, dtoClass, stats, pipeline);
+            stats.addRowsRead(processStream(readConn, writer, stats, state, moduleConfig.getFetchSql()));
+            writer.flush();
+            stats.addWriter(writer);
+        } finally {
+            stats.addAllocatedBytes(JvmMetrics.threadAllocatedBytes() - allocatedAtStart);
+        }
+    }
 
-            // Step 2: Iterate through each row, map it to a DTO, and generate JSON
-            for (Map<String, Object> row : fetchedData) {
-                T dto = mapToDto(row, (Class<T>) dtoClass);
-                if (dto != null) {
-                    String json = objectMapper.writeValueAsString(dto);
-                    System.out.println("Generated JSON for record: " + json);
+    /**
+     * Splits the module into primary-key ranges and processes them on one worker per partition.
+     * There are more ranges than workers and idle workers take the next unprocessed range, so a
+     * skewed key distribution does not leave one worker with most of the rows.
+     * Each worker commits its own writes; the module succeeds once every range has been committed.
+     * Keyset-paginated modules always take this path, with a single worker unless partitions are configured.
+     * Exports write one file series per worker and always start over: files are only complete once the
+     * manifest is written, so a failed export is not resumed from checkpoints.
+     */
+    private void processPartitioned(DataSource dataSource, ModuleConfig moduleConfig, Class<T> dtoClass,
+                                    ModuleStats stats, ExecutorService encodePool, ExportManifest export,
+                                    RejectLog rejects) throws Exception {
+        String moduleName = moduleConfig.getName();
+        KeyRangePartitioner partitioner = new KeyRangePartitioner(moduleConfig.getFetchSql(), moduleConfig.getPrimaryKey());
+        int workers = Math.max(1, moduleConfig.getPartitions());
+        boolean keyset = moduleConfig.isKeysetPagination();
+        CheckpointStore checkpoints = keyset && export == null && moduleConfig.getCheckpointTable() != null
+                ? new CheckpointStore(moduleConfig.getCheckpointTable(), moduleName)
+                : null;
 
-                    // Step 3: Update the database with the generated JSON string
-                    update(conn, updateSql, row, json);
-                } else {
-                    System.err.println("Failed to map row to DTO. Skipping JSON generation and update.");
+        List<KeyRange> ranges = null;
+        try (Connection conn = dataSource.getConnection()) {
+            if (checkpoints != null) {
+                ranges = checkpoints.load(conn);
+                if (!ranges.isEmpty()) {
+                    System.out.println("[" + moduleName + "] Resuming " + ranges.size() + " unfinished key ranges from "
+                            + moduleConfig.getCheckpointTable() + ".");
+                }
+            }
+            if (ranges == null || ranges.isEmpty()) {
+                ranges = partitioner.computeRanges(conn, workers * moduleConfig.getRangesPerPartition(),
+                        moduleConfig.isNtilePartitioning());
+                if (checkpoints != null) {
+                    checkpoints.start(conn, ranges);
                 }
             }
+        }
+        System.out.println("[" + moduleName + "] Split into " + ranges.size() + " key ranges for " + workers + " workers.");
 
-            System.out.println("Data processing completed successfully.");
+        Queue<KeyRange> pending = new ConcurrentLinkedQueue<>(ranges);
+        AtomicBoolean failed = new AtomicBoolean();
+        String rangeSql = keyset ? partitioner.pageSql() : partitioner.rangeSql();
+        CheckpointStore rangeCheckpoints = checkpoints;
 
-        } catch (SQLException e) {
-            System.err.println("Database error occurred: " + e.getMessage());
-            e.printStackTrace();
-        } catch (Exception e) {
-            System.err.println("An unexpected error occurred: " + e.getMessage());
-            e.printStackTrace();
-        }
+        runWorkers(workers, () -> {
+            long allocatedAtStart = JvmMetrics.threadAllocatedBytes();
+            try (Connection readConn = dataSource.getConnection();
+                 Connection writeConn = export == null ? dataSource.getConnection() : null;
+                 JsonRowWriter writer = newWriter(writeConn, moduleConfig, stats, export, rejects);
+                 RowPipeline pipeline = newPipeline(encodePool, moduleConfig, stats)) {
+                StreamState state = new StreamState(moduleConfig, dtoClass, stats, pipeline);
+                KeyRange range;
+                while (!failed.get() && (range = pending.poll()) != null) {
+                    if (keyset) {
+                        processPages(readConn, writeConn, writer, stats, state, rangeSql, range, rangeCheckpoints);
+                    } else {
+                        stats.addRowsRead(processStream(readConn, writer, stats, state, rangeSql,
+                                range.getLower(), range.getUpper()));
+                        writer.flush();
+                    }
+                }
+                stats.addWriter(writer);
+            } catch (Exception e) {
+                // Stop the other workers from taking new ranges
+                failed.set(true);
+                throw e;
+            } finally {
+                stats.addAllocatedBytes(JvmMetrics.threadAllocatedBytes() - allocatedAtStart);
+            }
+            return null;
+        });
     }
 
-    private List<Map<String, Object>> fetch(Connection conn, String fetchSql) throws SQLException {
-        List<Map<String, Object>> data = new ArrayList<>();
-        try (PreparedStatement stmt = conn.prepareStatement(fetchSql);
-             ResultSet rs = stmt.executeQuery()) {
+    /**
+     * Builds and writes the JSON inside the database with one set-based statement per key range, on one
+     * worker per partition. The mapping is the direct plan of the DTO's @JsonProperty fields rendered as SQL;
+     * rows never cross the network and rows whose JSON is unchanged are not updated. Each range is committed
+     * on its own.
+     * @return false, without writing anything, if the DTO has custom mapping logic or a field the plan cannot
+     *         express; the module is then mapped in the JVM.
+     */
+    private boolean processPushDown(DataSource dataSource, ModuleConfig moduleConfig, Class<T> dtoClass,
+                                    ModuleStats stats) throws Exception {
+        String moduleName = moduleConfig.getName();
+        if (moduleConfig.getTargetTable() == null || moduleConfig.getJsonColumn() == null || moduleConfig.getPrimaryKey() == null) {
+            throw new IllegalArgumentException("Push-down mapping needs " + moduleName + ".targetTable, "
+                    + moduleName + ".jsonColumn and " + moduleName + ".primaryKey.");
+        }
+        KeyRangePartitioner partitioner = new KeyRangePartitioner(moduleConfig.getFetchSql(), moduleConfig.getPrimaryKey());
+        int workers = Math.max(1, moduleConfig.getPartitions());
 
-            ResultSetMetaData metaData = rs.getMetaData();
-            int columnCount = metaData.getColumnCount();
+        String sql;
+        List<KeyRange> ranges;
+        try (Connection conn = dataSource.getConnection()) {
+            // Only the result set metadata is needed; the range query is described, not executed
+            RowSchema schema;
+            try (PreparedStatement stmt = conn.prepareStatement(partitioner.rangeSql())) {
+                schema = RowSchema.of(stmt.getMetaData());
+            }
+            List<String> problems = new ArrayList<>();
+            DirectJsonPlan plan = null;
+            if (customMapper(dtoClass, schema, ConverterRegistry.withConverters(moduleConfig.getConverters())) != null) {
+                problems.add(dtoClass.getSimpleName() + " has custom mapping logic");
+            } else if (!moduleConfig.getConverters().isEmpty()) {
+                problems.add("the module has custom converters");
+            } else {
+                plan = DirectJsonPlan.compile(dtoClass, schema, problems);
+            }
+            if (plan == null) {
+                System.out.println("[" + moduleName + "] Push-down is not possible, mapping in the JVM: " + problems);
+                return false;
+            }
+            sql = partitioner.pushDownSql(plan.toJsonbSql(schema, "src"), moduleConfig.getTargetTable(),
+                    moduleConfig.getJsonColumn(), moduleConfig.getHashColumn());
+            ranges = partitioner.computeRanges(conn, workers * moduleConfig.getRangesPerPartition(),
+                    moduleConfig.isNtilePartitioning());
+        }
+        System.out.println("[" + moduleName + "] Building JSON in the database: " + ranges.size() + " key ranges for "
+                + workers + " workers.");
 
-            while (rs.next()) {
-                Map<String, Object> row = new HashMap<>();
-                for (int i = 1; i <= columnCount; i++) {
-                    String columnName = metaData.getColumnName(i).toLowerCase();
-                    Object value = rs.getObject(i);
-                    row.put(columnName, value);
+        Queue<KeyRange> pending = new ConcurrentLinkedQueue<>(ranges);
+        AtomicBoolean failed = new AtomicBoolean();
+        runWorkers(workers, () -> {
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+                conn.setAutoCommit(false);
+                KeyRange range;
+                while (!failed.get() && (range = pending.poll()) != null) {
+                    long start = System.nanoTime();
+                    stmt.setLong(1, range.getLower());
+                    stmt.setLong(2, range.getUpper());
+                    long covered;
+                    long updated;
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        rs.next();
+                        covered = rs.getLong(1);
+                        updated = rs.getLong(2);
+                    } catch (SQLException e) {
+                        conn.rollback();
+                        throw e;
+                    }
+                    conn.commit();
+                    stats.recordBatch((int) Math.min(updated, Integer.MAX_VALUE), System.nanoTime() - start);
+                    stats.addRoundTrips(2);
+                    stats.addPushedDown(covered, updated);
                 }
-                data.add(row);
+            } catch (Exception e) {
+                // Stop the other workers from taking new ranges
+                failed.set(true);
+                throw e;
             }
-        }
-        return data;
+            return null;
+        });
+        return true;
     }
 
-    private T mapToDto(Map<String, Object> row, Class<T> dtoClass) throws Exception {
-        // Special case for Employee DTO due to complex object structure and business logic
-        if (dtoClass.equals(Employee.class)) {
-            return (T) Employee.fromMap(row);
+    /**
+     * Keeps the module's JSON current from its change queue until running is cleared. Each micro-batch claims
+     * up to changeBatchSize queued keys, regenerates the JSON of those rows with the module's usual mapping and
+     * writer, and commits the writes together with the removal of the claimed entries. Keys changed several
+     * times are refreshed once. An idle worker waits for a change notification, or at most changePollMillis.
+     * A failed batch stays queued and is retried after changePollMillis on new connections.
+     * @param stats Receives the counters of all batches.
+     * @param running Cleared to stop the worker once its current batch is committed.
+     */
+    public void processChanges(DataSource dataSource, ModuleConfig moduleConfig, Class<?> dtoClass, ModuleStats stats,
+                               AtomicBoolean running) throws Exception {
+        String moduleName = moduleConfig.getName();
+        if (moduleConfig.getPrimaryKey() == null || moduleConfig.getChangeQueueTable() == null) {
+            throw new IllegalArgumentException("Continuous mode needs " + moduleName + ".primaryKey and a changeQueueTable.");
+        }
+        if (moduleConfig.getWriteStrategy() == WriteStrategy.EXPORT) {
+            throw new IllegalArgumentException("Module '" + moduleName + "' exports files and cannot run continuously.");
+        }
+        @SuppressWarnings("unchecked")
+        Class<T> targetClass = (Class<T>) dtoClass;
+        RejectLog rejects = moduleConfig.getWriteStrategy() == WriteStrategy.BATCH && moduleConfig.getMaxRejects() > 0
+                ? new RejectLog(moduleConfig, stats)
+                : null;
+        System.out.println("[" + moduleName + "] Refreshing changes from " + moduleConfig.getChangeQueueTable() + ".");
+        try {
+            while (running.get()) {
+                try {
+                    refreshChanges(dataSource, moduleConfig, targetClass, stats, rejects, running);
+                } catch (Exception e) {
+                    System.err.println("[" + moduleName + "] Change batch failed, retrying in "
+                            + moduleConfig.getChangePollMillis() + " ms: " + e.getMessage());
+                    Thread.sleep(moduleConfig.getChangePollMillis());
+                }
+            }
+        } finally {
+            if (rejects != null) {
+                rejects.close();
+            }
+            stats.finish();
         }
+    }
 
-        T dto = dtoClass.getConstructor().newInstance();
-        for (Map.Entry<String, Object> entry : row.entrySet()) {
-            String columnName = entry.getKey();
-            Object value = entry.getValue();
+    /**
+     * Drains the change queue on one set of connections until running is cleared or a batch fails.
+     */
+    private void refreshChanges(DataSource dataSource, ModuleConfig moduleConfig, Class<T> dtoClass, ModuleStats stats,
+                                RejectLog rejects, AtomicBoolean running) throws Exception {
+        String moduleName = moduleConfig.getName();
+        ChangeQueue queue = new ChangeQueue(moduleConfig.getChangeQueueTable());
+        String keysSql = new KeyRangePartitioner(moduleConfig.getFetchSql(), moduleConfig.getPrimaryKey()).keysSql();
+        // The claim is committed with the writes; a batch larger than the commit interval would commit it early
+        int batchSize = Math.min(moduleConfig.getChangeBatchSize(), Math.max(1, moduleConfig.getCommitInterval()));
 
+        try (Connection listenConn = dataSource.getConnection();
+             Connection readConn = dataSource.getConnection();
+             Connection writeConn = dataSource.getConnection();
+             JsonRowWriter writer = newWriter(writeConn, moduleConfig, stats, null, rejects)) {
+            listenConn.setAutoCommit(true);
+            ChangeQueue.listen(listenConn);
             try {
-                String fieldName = toCamelCase(columnName);
-                String setterMethodName = "set" + capitalize(fieldName);
+                StreamState state = new StreamState(moduleConfig, dtoClass, stats, null);
+                long reportedWritten = 0;
+                long reportedAffected = 0;
+
+                while (running.get()) {
+                    try {
+                        Long[] keys = queue.claim(writeConn, moduleName, batchSize);
+                        if (keys.length == 0) {
+                            writeConn.commit();
+                            stats.addRoundTrips(2);
+                            ChangeQueue.await(listenConn, moduleConfig.getChangePollMillis());
+                            continue;
+                        }
+                        long start = System.currentTimeMillis();
+                        Array keyArray = readConn.createArrayOf("bigint", keys);
+                        stats.addRowsRead(processStream(readConn, writer, stats, state, keysSql, keyArray));
+                        writer.flush();
+                        // Also removes the claimed entries when no row needed writing
+                        writeConn.commit();
+                        stats.addRoundTrips(2);
 
-                Method setter = findSetter(dtoClass, setterMethodName);
-                if (setter != null) {
-                    Class<?> paramType = setter.getParameterTypes()[0];
-                    Object castValue = castToType(value, paramType);
+                        long written = writer.getRowsWritten() - reportedWritten;
+                        stats.addWritten(written, writer.getRowsAffected() - reportedAffected);
+                        reportedWritten = writer.getRowsWritten();
+                        reportedAffected = writer.getRowsAffected();
+                        System.out.println("[" + moduleName + "] Refreshed " + keys.length + " changed keys, wrote "
+                                + written + " JSON documents in " + (System.currentTimeMillis() - start) + " ms.");
+                    } catch (Exception e) {
+                        // Return the claimed entries to the queue
+                        writeConn.rollback();
+                        throw e;
+                    }
+                }
+            } finally {
+                try {
+                    // The connection returns to the pool; it must not keep receiving notifications
+                    ChangeQueue.unlisten(listenConn);
+                } catch (SQLException e) {
+                    // A broken connection is evicted by the pool
+                }
+            }
+        }
+    }
 
-                    if (castValue != null) {
-                        setter.invoke(dto, castValue);
+    /**
+     * Runs the worker task on the given number of threads and waits until all of them have finished.
+     * @throws Exception The first worker failure; failures of other workers are added as suppressed.
+     */
+    private static void runWorkers(int workers, Callable<Void> worker) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                futures.add(executor.submit(worker));
+            }
+
+            Exception failure = null;
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
                     } else {
-                        System.err.println("Warning: Failed to cast value for column " + columnName);
+                        failure.addSuppressed(e.getCause());
                     }
-                } else {
-                    System.err.println("Warning: No setter found for column " + columnName + " after conversion.");
                 }
-            } catch (Exception e) {
-                System.err.println("Error mapping column " + columnName + " to DTO field: " + e.getMessage());
             }
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            executor.shutdownNow();
         }
-        return dto;
     }
 
-    private String toCamelCase(String snakeCase) {
-        StringBuilder camelCaseBuilder = new StringBuilder();
-        String[] parts = snakeCase.split("_");
-        for (int i = 0; i < parts.length; i++) {
-            if (i == 0) {
-                camelCaseBuilder.append(parts[i]);
-            } else {
-                camelCaseBuilder.append(capitalize(parts[i]));
+    /**
+     * Reads one key range page by page in ascending key order. Every page is a short read transaction
+     * of its own, so no snapshot stays open for the whole range; after each page the writes are
+     * committed and the checkpoint is advanced past the page's last key.
+     */
+    private void processPages(Connection readConn, Connection writeConn, JsonRowWriter writer, ModuleStats stats,
+                              StreamState state, String pageSql, KeyRange range, CheckpointStore checkpoints) throws Exception {
+        int pageSize = state.moduleConfig.getPageSize();
+        long lower = range.getLower();
+        while (true) {
+            long rows = processStream(readConn, writer, stats, state, pageSql, lower, range.getUpper(), pageSize);
+            stats.addRowsRead(rows);
+            writer.flush();
+            if (rows < pageSize) {
+                break;
+            }
+            lower = ((Number) state.lastKey).longValue() + 1;
+            if (checkpoints != null) {
+                checkpoints.advance(writeConn, range, lower);
             }
         }
-        return camelCaseBuilder.toString();
+        if (checkpoints != null) {
+            checkpoints.complete(writeConn, range);
+        }
     }
 
-    private String capitalize(String str) {
-        if (str == null || str.isEmpty()) {
-            return str;
+    /**
+     * Streams one query, maps each row to a DTO, generates JSON and queues the update.
+     * With a hash column configured, rows whose JSON hash equals the stored hash are skipped.
+     * @return The number of rows read.
+     */
+    private long processStream(Connection readConn, JsonRowWriter writer, ModuleStats stats, StreamState state,
+                               String sql, Object... params) throws Exception {
+        if (state.pipeline != null) {
+            return processPipelined(readConn, writer, stats, state, sql, params);
         }
-        return str.substring(0, 1).toUpperCase() + str.substring(1);
+        return fetch(readConn, sql, params, state.moduleConfig.getFetchSize(), stats, schema -> {
+            state.prepare(schema);
+            RowEncoder encoder = state.encoder;
+            int primaryKeyIndex = state.primaryKeyIndex;
+            int hashIndex = state.hashIndex;
+            JsonBuffer buffer = state.buffer;
+            JsonGenerator generator = state.generator;
+
+            return row -> {
+                Object primaryKey = row.get(primaryKeyIndex);
+                state.lastKey = primaryKey;
+                buffer.reset();
+                if (encoder.encode(row, generator)) {
+                    generator.flush();
+                    stats.addJsonBytes(buffer.size());
+                    if (stats.sampleRow()) {
+                        System.out.println("Generated JSON for record: " + buffer.toUtf8String());
+                    }
+
+                    long hash = 0;
+                    if (hashIndex >= 0) {
+                        hash = ContentHash.of(buffer);
+                        if (!row.isNull(hashIndex) && row.getLong(hashIndex) == hash) {
+                            stats.addRowSkipped();
+                            return;
+                        }
+                    }
+
+                    if (primaryKey == null) {
+                        throw new SQLException("Primary key is null in the fetched data.");
+                    }
+                    writer.write(primaryKey, buffer, hash);
+                } else {
+                    System.err.println("Failed to map row to DTO. Skipping JSON generation and update.");
+                }
+            };
+        });
     }
 
-    private Method findSetter(Class<?> clazz, String setterMethodName) {
-        for (Method method : clazz.getMethods()) {
-            if (method.getName().equals(setterMethodName) && method.getParameterCount() == 1) {
-                return method;
+    /**
+     * Streams one query through the worker's pipeline and returns once all of its rows are written.
+     * @return The number of rows read.
+     */
+    private long processPipelined(Connection readConn, JsonRowWriter writer, ModuleStats stats, StreamState state,
+                                  String sql, Object... params) throws Exception {
+        RowPipeline.Stream[] stream = new RowPipeline.Stream[1];
+        try {
+            long count = fetch(readConn, sql, params, state.moduleConfig.getFetchSize(), stats, schema -> {
+                state.prepare(schema);
+                int primaryKeyIndex = state.primaryKeyIndex;
+                RowPipeline.Stream rows = state.pipeline.start(state.encoder::encode, primaryKeyIndex, state.hashIndex, writer);
+                stream[0] = rows;
+
+                return row -> {
+                    state.lastKey = row.get(primaryKeyIndex);
+                    rows.accept(row);
+                };
+            });
+            if (stream[0] != null) {
+                stream[0].finish();
+            }
+            return count;
+        } catch (Exception e) {
+            if (stream[0] != null) {
+                stream[0].abort();
             }
+            throw e;
         }
-        return null;
     }
 
-    private Object castToType(Object value, Class<?> targetType) {
-        if (value == null) {
+    private RowPipeline newPipeline(ExecutorService encodePool, ModuleConfig moduleConfig, ModuleStats stats) {
+        if (encodePool == null) {
             return null;
         }
+        return new RowPipeline(encodePool, moduleConfig.getPipelineQueueSize(), objectMapper.getFactory(), stats);
+    }
 
-        if (targetType.isInstance(value)) {
-            return value;
+    /**
+     * @param writeConn The worker's write connection; null when exporting.
+     * @param rejects The module's reject log for batched updates, or null.
+     */
+    private JsonRowWriter newWriter(Connection writeConn, ModuleConfig moduleConfig, ModuleStats stats,
+                                    ExportManifest export, RejectLog rejects) throws SQLException {
+        if (export != null) {
+            return new NdjsonExportWriter(export, moduleConfig, stats);
         }
+        if (moduleConfig.getWriteStrategy() == WriteStrategy.COPY) {
+            return new CopyJsonWriter(writeConn, moduleConfig, stats);
+        }
+        if (moduleConfig.getHashColumn() != null) {
+            return new BatchedJsonWriter(writeConn, moduleConfig.getHashedUpdateSql(),
+                    moduleConfig.getBatchSize(), moduleConfig.getCommitInterval(), true, stats, rejects);
+        }
+        return new BatchedJsonWriter(writeConn, moduleConfig.getUpdateSql(),
+                moduleConfig.getBatchSize(), moduleConfig.getCommitInterval(), false, stats, rejects);
+    }
+
+    /**
+     * Streams the result of a query through a server-side cursor and hands each row to a handler.
+     * Only fetchSize rows are held in memory at a time, regardless of the table size.
+     * @param conn The connection used for reading; autocommit is switched off so PostgreSQL uses a cursor.
+     * @param sql The query to run.
+     * @param params The query parameters.
+     * @param fetchSize The number of rows the driver fetches per round trip.
+     * @param stats Receives the fetch latency per row, excluding the handler, and the round trips.
+     * @param handlerFactory Creates the row handler from the result set schema, before the first row.
+     * @return The number of rows read.
+     */
+    private long fetch(Connection conn, String sql, Object[] params, int fetchSize, ModuleStats stats,
+                       RowHandlerFactory handlerFactory) throws Exception {
+        conn.setAutoCommit(false);
+        long count = 0;
+        try (PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(fetchSize);
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                RowSchema schema = RowSchema.of(rs.getMetaData());
+                RowHandler handler = handlerFactory.create(schema);
 
-        if (targetType.equals(String.class)) {
-            return value.toString();
-        } else if (targetType.equals(Integer.class) && value instanceof Number) {
-            return ((Number) value).intValue();
-        } else if (targetType.equals(Long.class) && value instanceof Number) {
-            return ((Number) value).longValue();
-        } else if (targetType.equals(Double.class) && value instanceof Number) {
-            return ((Number) value).doubleValue();
-        } else if (targetType.equals(Float.class) && value instanceof Number) {
-            return ((Number) value).floatValue();
-        } else if (targetType.equals(BigDecimal.class) && value instanceof Number) {
-            return new BigDecimal(value.toString());
-        } else if (targetType.equals(BigDecimal.class) && value instanceof String) {
-            return new BigDecimal((String) value);
+                long fetchStart = System.nanoTime();
+                while (rs.next()) {
+                    Row row = Row.read(rs, schema);
+                    stats.getFetchLatency().record(System.nanoTime() - fetchStart);
+                    handler.handle(row);
+                    count++;
+                    fetchStart = System.nanoTime();
+                }
+            }
+        } finally {
+            // Nothing was written on this connection; end the read transaction and release the cursor
+            conn.rollback();
+            // The query, one fetch per fetchSize rows and the rollback
+            stats.addRoundTrips(2 + count / Math.max(1, fetchSize));
         }
-        return null;
+        return count;
     }
 
-    private void update(Connection conn, String updateSql, Map<String, Object> row, String json) throws SQLException {
-        try (PreparedStatement stmt = conn.prepareStatement(updateSql)) {
-            Object primaryKey = row.get("id");
-            if (primaryKey == null) {
-                primaryKey = row.get("user_id");
+    /**
+     * Chooses how rows of this schema are turned into JSON.
+     * In direct mode, rows are written straight to the generator from the DTO's @JsonProperty fields.
+     * Otherwise each row is mapped to a DTO and serialized; DTOs with custom mapping logic always take this path.
+     */
+    private RowEncoder prepareEncoder(Class<T> dtoClass, RowSchema schema, ModuleConfig moduleConfig, ModuleStats stats) {
+        MappingMode mode = moduleConfig.getMappingMode();
+        ConverterRegistry converters = ConverterRegistry.withConverters(moduleConfig.getConverters());
+        Function<Row, T> customMapper = customMapper(dtoClass, schema, converters);
+        if (mode == MappingMode.AUTO && !moduleConfig.getConverters().isEmpty()) {
+            // The direct plan writes column values without the module's converters
+            System.out.println("[" + moduleConfig.getName() + "] Using DTO mapping: the module has custom converters.");
+            mode = MappingMode.DTO;
+        }
+
+        if (mode != MappingMode.DTO && customMapper == null) {
+            List<String> problems = new ArrayList<>();
+            DirectJsonPlan plan = DirectJsonPlan.compile(dtoClass, schema, problems);
+            if (plan != null) {
+                System.out.println("[" + moduleConfig.getName() + "] Writing JSON directly from rows.");
+                Histogram serializeLatency = stats.getSerializeLatency();
+                return (row, generator) -> {
+                    long start = System.nanoTime();
+                    plan.write(row, generator);
+                    serializeLatency.record(System.nanoTime() - start);
+                    return true;
+                };
+            }
+            if (mode == MappingMode.DIRECT) {
+                throw new IllegalStateException("Direct mapping is not possible for " + dtoClass.getSimpleName() + ": " + problems);
+            }
+            System.out.println("[" + moduleConfig.getName() + "] Using DTO mapping: " + problems);
+        } else if (mode == MappingMode.DIRECT) {
+            throw new IllegalStateException("Direct mapping is not possible for " + dtoClass.getSimpleName()
+                    + ": it has custom mapping logic.");
+        }
+
+        Function<Row, T> rowMapper = customMapper != null ? customMapper
+                : CompiledRowMapper.forSchema(dtoClass, schema, converters)::map;
+        Histogram mapLatency = stats.getMapLatency();
+        Histogram serializeLatency = stats.getSerializeLatency();
+        return (row, generator) -> {
+            long start = System.nanoTime();
+            T dto = rowMapper.apply(row);
+            long mapped = System.nanoTime();
+            mapLatency.record(mapped - start);
+            if (dto == null) {
+                return false;
             }
-            if (primaryKey == null) {
-                primaryKey = row.get("employee_id");
+            objectMapper.writeValue(generator, dto);
+            serializeLatency.record(System.nanoTime() - mapped);
+            return true;
+        };
+    }
+
+    /**
+     * Loads the DTO's generated mapper, if any, and serializes a new DTO instance, so Jackson's serializer for the
+     * class is built; used to train startup archives without a database.
+     */
+    void warmUp(Class<?> dtoClass) throws Exception {
+        generatedMapperClass(dtoClass);
+        JsonBuffer buffer = new JsonBuffer();
+        objectMapper.writeValue(buffer, dtoClass.getConstructor().newInstance());
+    }
+
+    /**
+     * DTOs with custom mapping logic are annotated with @RowMapped, like Employee, and have a mapper class
+     * generated at compile time; DTOs may instead declare a static rowMapper(RowSchema) factory.
+     * @return The mapping function for this schema, or null if the DTO has no custom mapping.
+     */
+    private Function<Row, T> customMapper(Class<T> dtoClass, RowSchema schema, ConverterRegistry converters) {
+        Function<Row, T> generated = generatedMapper(dtoClass, schema, converters);
+        if (generated != null) {
+            return generated;
+        }
+        Method factory;
+        try {
+            factory = dtoClass.getMethod("rowMapper", RowSchema.class);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+        if (!Modifier.isStatic(factory.getModifiers()) || !Function.class.isAssignableFrom(factory.getReturnType())) {
+            return null;
+        }
+        try {
+            @SuppressWarnings("unchecked")
+            Function<Row, T> mapper = (Function<Row, T>) factory.invoke(null, schema);
+            return mapper;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create the row mapper of " + dtoClass.getName(), e);
+        }
+    }
+
+    /**
+     * @return A new instance of the generated &lt;DtoClass&gt;RowMapper for this schema, converting values with the
+     *         run's converters, or null if there is none.
+     */
+    private Function<Row, T> generatedMapper(Class<T> dtoClass, RowSchema schema, ConverterRegistry converters) {
+        Class<?> mapperClass = generatedMapperClass(dtoClass);
+        if (mapperClass == null || !Function.class.isAssignableFrom(mapperClass)) {
+            return null;
+        }
+        try {
+            @SuppressWarnings("unchecked")
+            Function<Row, T> mapper = (Function<Row, T>) mapperClass
+                    .getConstructor(RowSchema.class, ConverterRegistry.class).newInstance(schema, converters);
+            return mapper;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create the generated row mapper of " + dtoClass.getName(), e);
+        }
+    }
+
+    /**
+     * @return The generated &lt;DtoClass&gt;RowMapper class, or null if the DTO is not annotated with @RowMapped.
+     * @throws IllegalStateException If the DTO is annotated but was compiled without the annotation processor;
+     *                               mapping it reflectively would silently ignore its mapping annotations.
+     */
+    private static Class<?> generatedMapperClass(Class<?> dtoClass) {
+        try {
+            return Class.forName(dtoClass.getName() + "RowMapper", true, dtoClass.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            if (dtoClass.isAnnotationPresent(RowMapped.class)) {
+                throw new IllegalStateException(dtoClass.getName() + " is annotated with @RowMapped but "
+                        + dtoClass.getName() + "RowMapper was not generated; build with the mapping annotation processor.", e);
             }
+            return null;
+        }
+    }
 
-            if (primaryKey == null) {
-                throw new SQLException("Primary key not found in the fetched data.");
+    /**
+     * Resolves the primary key column once per result set.
+     * Without a configured key, the first of id, user_id and employee_id present in the result is used.
+     */
+    private int primaryKeyIndex(RowSchema schema, String configuredKey) throws SQLException {
+        String[] candidates = configuredKey != null
+                ? new String[] {configuredKey}
+                : new String[] {"id", "user_id", "employee_id"};
+        for (String candidate : candidates) {
+            int index = schema.indexOf(candidate);
+            if (index >= 0) {
+                return index;
             }
+        }
+        throw new SQLException("Primary key not found in the fetched data.");
+    }
+
+    /**
+     * Resolves the stored hash column once per result set.
+     * @return The column index, or -1 if hashing is not configured.
+     */
+    private int hashIndex(RowSchema schema, String hashColumn) throws SQLException {
+        if (hashColumn == null) {
+            return -1;
+        }
+        int index = schema.indexOf(hashColumn);
+        if (index < 0) {
+            throw new SQLException("Hash column '" + hashColumn + "' must be selected by the fetch query.");
+        }
+        return index;
+    }
 
-            stmt.setString(1, json);
-            stmt.setObject(2, primaryKey);
+    /**
+     * The encoding state of one worker. It is reused across the worker's queries and only
+     * prepared again when a result set has different columns.
+     */
+    private final class StreamState {
+        private final ModuleConfig moduleConfig;
+        private final Class<T> dtoClass;
+        private final ModuleStats stats;
+        /** Null when rows are encoded and written on the reading thread. */
+        private final RowPipeline pipeline;
+        private final JsonBuffer buffer = new JsonBuffer();
+        private final JsonGenerator generator;
+        private String[] columns;
+        private RowEncoder encoder;
+        private int primaryKeyIndex;
+        private int hashIndex;
+        /** The primary key of the last row read. */
+        private Object lastKey;
 
-            int rowsAffected = stmt.executeUpdate();
-            System.out.println("Updated " + rowsAffected + " rows for primary key: " + primaryKey);
+        StreamState(ModuleConfig moduleConfig, Class<T> dtoClass, ModuleStats stats, RowPipeline pipeline) throws IOException {
+            this.moduleConfig = moduleConfig;
+            this.stats = stats;
+            this.dtoClass = dtoClass;
+            this.pipeline = pipeline;
+            this.generator = objectMapper.getFactory().createGenerator(buffer);
+            // Every row is a separate document; no separator between root values
+            generator.setRootValueSeparator(null);
         }
+
+        void prepare(RowSchema schema) throws SQLException {
+            if (Arrays.equals(columns, schema.getColumns())) {
+                return;
+            }
+            encoder = prepareEncoder(dtoClass, schema, moduleConfig, stats);
+            primaryKeyIndex = primaryKeyIndex(schema, moduleConfig.getPrimaryKey());
+            // Exports contain every row, changed or not
+            hashIndex = moduleConfig.getWriteStrategy() == WriteStrategy.EXPORT
+                    ? -1
+                    : hashIndex(schema, moduleConfig.getHashColumn());
+            columns = schema.getColumns();
+        }
+    }
+
+    /**
+     * Creates the row handler for a result set once its schema is known.
+     */
+    @FunctionalInterface
+    private interface RowHandlerFactory {
+        RowHandler create(RowSchema schema) throws Exception;
+    }
+
+    /**
+     * Writes the JSON of one row to a generator.
+     */
+    @FunctionalInterface
+    private interface RowEncoder {
+        /**
+         * @return false if the row could not be mapped and nothing was written.
+         */
+        boolean encode(Row row, JsonGenerator generator) throws IOException;
+    }
+
+    /**
+     * Callback receiving streamed rows from fetch.
+     */
+    @FunctionalInterface
+    private interface RowHandler {
+        void handle(Row row) throws Exception;
     }
 }
@@ -0,0 +1,36 @@
+package com.dbtojson;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reusable UTF-8 buffer holding the JSON of one row.
+ * It is reset for every row, so its backing array is allocated once per stream and only grows.
+ */
+public class JsonBuffer extends ByteArrayOutputStream {
+
+    public JsonBuffer() {
+        super(1024);
+    }
+
+    /**
+     * @return The backing array; only the first {@link #size()} bytes are valid.
+     */
+    public byte[] array() {
+        return buf;
+    }
+
+    /**
+     * Discards everything written after the first size bytes.
+     */
+    public void truncate(int size) {
+        count = size;
+    }
+
+    /**
+     * @return The buffered JSON decoded as a String, for drivers that bind text parameters.
+     */
+    public String toUtf8String() {
+        return new String(buf, 0, count, StandardCharsets.UTF_8);
+    }
+}
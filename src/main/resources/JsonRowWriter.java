@@ -0,0 +1,36 @@
+package com.dbtojson;
+
+import java.sql.SQLException;
+
+/**
+ * Sink for the generated JSON of a module, one instance per worker.
+ * Implementations commit in intervals; rows not flushed when the writer is closed are rolled back.
+ */
+public interface JsonRowWriter extends AutoCloseable {
+
+    /**
+     * Queues the JSON of one row.
+     * @param primaryKey The primary key of the row.
+     * @param json The generated JSON; implementations copy what they keep, so the buffer can be reused afterwards.
+     * @param hash The content hash of the JSON, stored when the module has a hash column.
+     */
+    void write(Object primaryKey, JsonBuffer json, long hash) throws SQLException;
+
+    /**
+     * Writes and commits everything queued so far.
+     */
+    void flush() throws SQLException;
+
+    /**
+     * @return The number of JSON documents queued.
+     */
+    long getRowsWritten();
+
+    /**
+     * @return The number of target rows updated by committed writes.
+     */
+    long getRowsAffected();
+
+    @Override
+    void close() throws SQLException;
+}
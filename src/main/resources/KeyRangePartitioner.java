@@ -0,0 +1,153 @@
+package com.dbtojson;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a module's fetch query into primary-key ranges that can be processed independently.
+ * The primary key must be an integral column.
+ */
+public class KeyRangePartitioner {
+
+    private final String fetchSql;
+    private final String primaryKey;
+
+    /**
+     * @param fetchSql The module's fetch query; a trailing semicolon is ignored.
+     * @param primaryKey The integral primary key column returned by the fetch query.
+     */
+    public KeyRangePartitioner(String fetchSql, String primaryKey) {
+        this.fetchSql = stripTerminator(fetchSql);
+        this.primaryKey = primaryKey;
+    }
+
+    /**
+     * Computes the key ranges covering all rows of the fetch query.
+     * @param conn The connection to query the key distribution on.
+     * @param rangeCount The number of ranges to produce.
+     * @param useNtile If true, boundaries come from NTILE over the keys so every range holds about
+     *                 the same number of rows; otherwise the span between MIN and MAX is split evenly.
+     * @return The ranges, ordered by key; empty if the query returns no rows.
+     */
+    public List<KeyRange> computeRanges(Connection conn, int rangeCount, boolean useNtile) throws SQLException {
+        return useNtile ? ntileRanges(conn, rangeCount) : evenRanges(conn, rangeCount);
+    }
+
+    /**
+     * @return The fetch query restricted to one key range; takes the lower and upper bound as parameters.
+     */
+    public String rangeSql() {
+        return "SELECT * FROM (" + fetchSql + ") src WHERE " + primaryKey + " >= ? AND " + primaryKey + " < ?";
+    }
+
+    /**
+     * @return The fetch query restricted to a set of keys; takes a bigint array as parameter.
+     */
+    public String keysSql() {
+        return "SELECT * FROM (" + fetchSql + ") src WHERE " + primaryKey + " = ANY(?)";
+    }
+
+    /**
+     * @return The fetch query restricted to one page of a key range, in key order; takes the lower bound,
+     *         the upper bound and the page size as parameters.
+     */
+    public String pageSql() {
+        return rangeSql() + " ORDER BY " + primaryKey + " LIMIT ?";
+    }
+
+    /**
+     * Builds the set-based statement writing the JSON of one key range inside the database.
+     * Only rows whose document changed are updated; a configured hash column is cleared on them, since
+     * the hash of the JSON generated in the JVM is no longer known.
+     * @param documentSql The jsonb expression of a row, over the fetch query aliased as src.
+     * @param hashColumn The stored hash column, or null.
+     * @return The statement; takes the lower and upper bound as parameters and returns the number of rows
+     *         in the range and the number of rows updated.
+     */
+    public String pushDownSql(String documentSql, String targetTable, String jsonColumn, String hashColumn) {
+        return "WITH docs AS ("
+                + "SELECT src." + primaryKey + " AS pk, " + documentSql + " AS doc FROM (" + fetchSql + ") src"
+                + " WHERE src." + primaryKey + " >= ? AND src." + primaryKey + " < ?"
+                + "), updated AS ("
+                + "UPDATE " + targetTable + " t SET " + jsonColumn + " = docs.doc"
+                + (hashColumn != null ? ", " + hashColumn + " = NULL" : "")
+                + " FROM docs WHERE t." + primaryKey + " = docs.pk AND t." + jsonColumn + " IS DISTINCT FROM docs.doc"
+                + " RETURNING 1"
+                + ") SELECT (SELECT count(*) FROM docs), (SELECT count(*) FROM updated)";
+    }
+
+    private List<KeyRange> evenRanges(Connection conn, int rangeCount) throws SQLException {
+        String sql = "SELECT MIN(" + primaryKey + "), MAX(" + primaryKey + ") FROM (" + fetchSql + ") src";
+        List<KeyRange> ranges = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            long min = rs.getLong(1);
+            if (rs.wasNull()) {
+                return ranges;
+            }
+            long max = rs.getLong(2);
+
+            long span = max - min + 1;
+            long step = Math.max(1, (span + rangeCount - 1) / rangeCount);
+            for (long lower = min; lower <= max; lower += step) {
+                ranges.add(new KeyRange(lower, Math.min(lower + step, max + 1)));
+            }
+        }
+        return ranges;
+    }
+
+    private List<KeyRange> ntileRanges(Connection conn, int rangeCount) throws SQLException {
+        String sql = "SELECT MIN(" + primaryKey + "), MAX(" + primaryKey + ") FROM ("
+                + "SELECT " + primaryKey + ", NTILE(?) OVER (ORDER BY " + primaryKey + ") AS tile FROM (" + fetchSql + ") src"
+                + ") tiles GROUP BY tile ORDER BY 1";
+        List<KeyRange> ranges = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, rangeCount);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ranges.add(new KeyRange(rs.getLong(1), rs.getLong(2) + 1));
+                }
+            }
+        }
+        return ranges;
+    }
+
+    static String stripTerminator(String sql) {
+        String trimmed = sql.trim();
+        while (trimmed.endsWith(";")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1).trim();
+        }
+        return trimmed;
+    }
+
+    /**
+     * A half-open primary-key range [lower, upper).
+     */
+    public static final class KeyRange {
+        private final long lower;
+        private final long upper;
+
+        public KeyRange(long lower, long upper) {
+            this.lower = lower;
+            this.upper = upper;
+        }
+
+        public long getLower() {
+            return lower;
+        }
+
+        public long getUpper() {
+            return upper;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + lower + ", " + upper + ")";
+        }
+    }
+}
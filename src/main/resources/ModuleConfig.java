@@ -0,0 +1,460 @@
+package com.dbtojson;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Per-module settings read from config.properties.
+ * A module-level key (e.g. employee.fetchSize) wins over the common key (fetchSize).
+ */
+public class ModuleConfig {
+
+    private static final int DEFAULT_FETCH_SIZE = 1000;
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    private static final int DEFAULT_COMMIT_INTERVAL = 5000;
+    private static final int DEFAULT_RANGES_PER_PARTITION = 4;
+    private static final int DEFAULT_PIPELINE_QUEUE_SIZE = 16;
+    private static final int DEFAULT_EXPORT_MAX_FILE_MB = 1024;
+    private static final int DEFAULT_MAX_REJECTS = 1000;
+    private static final int DEFAULT_CHANGE_BATCH_SIZE = 500;
+    private static final int DEFAULT_CHANGE_POLL_MILLIS = 5000;
+
+    private final String name;
+    private final String fetchSql;
+    private final String updateSql;
+    private final String dtoClassName;
+    private final int fetchSize;
+    private final int batchSize;
+    private final int commitInterval;
+    private final int priority;
+    private final String primaryKey;
+    private final int partitions;
+    private final int rangesPerPartition;
+    private final boolean ntilePartitioning;
+    private final MappingMode mappingMode;
+    private final WriteStrategy writeStrategy;
+    private final String targetTable;
+    private final String jsonColumn;
+    private final String hashColumn;
+    private final int pageSize;
+    private final String checkpointTable;
+    private final int encodeThreads;
+    private final int pipelineQueueSize;
+    private final int logSampleRate;
+    private final List<String> converters;
+    private final String exportDir;
+    private final ExportCompression exportCompression;
+    private final long exportMaxFileBytes;
+    private final String rejectDir;
+    private final int maxRejects;
+    private final String changeQueueTable;
+    private final int changeBatchSize;
+    private final int changePollMillis;
+
+    private ModuleConfig(Properties config, String name) {
+        this.name = name;
+        this.fetchSql = config.getProperty(name + ".fetchSql");
+        this.updateSql = config.getProperty(name + ".updateSql");
+        this.dtoClassName = config.getProperty(name + ".dtoClass");
+        this.fetchSize = intSetting(config, name, "fetchSize", DEFAULT_FETCH_SIZE);
+        this.batchSize = intSetting(config, name, "batchSize", DEFAULT_BATCH_SIZE);
+        this.commitInterval = intSetting(config, name, "commitInterval", DEFAULT_COMMIT_INTERVAL);
+        this.priority = intSetting(config, name, "priority", 0);
+        String primaryKeySetting = trimmed(config.getProperty(name + ".primaryKey"));
+        this.primaryKey = primaryKeySetting != null ? primaryKeySetting.toLowerCase() : null;
+        this.partitions = intSetting(config, name, "partitions", 1);
+        this.rangesPerPartition = Math.max(1, intSetting(config, name, "rangesPerPartition", DEFAULT_RANGES_PER_PARTITION));
+        this.ntilePartitioning = "ntile".equalsIgnoreCase(setting(config, name, "partitionBoundaries"));
+        this.mappingMode = MappingMode.parse(setting(config, name, "mapping"));
+        this.writeStrategy = WriteStrategy.parse(setting(config, name, "writeStrategy"));
+        this.targetTable = trimmed(config.getProperty(name + ".targetTable"));
+        this.jsonColumn = trimmed(config.getProperty(name + ".jsonColumn"));
+        String hashColumnSetting = trimmed(config.getProperty(name + ".hashColumn"));
+        this.hashColumn = hashColumnSetting != null ? hashColumnSetting.toLowerCase() : null;
+        this.pageSize = intSetting(config, name, "pageSize", 0);
+        this.checkpointTable = trimmed(setting(config, name, "checkpointTable"));
+        this.encodeThreads = intSetting(config, name, "encodeThreads", 0);
+        this.pipelineQueueSize = Math.max(1, intSetting(config, name, "pipelineQueueSize", DEFAULT_PIPELINE_QUEUE_SIZE));
+        this.logSampleRate = Math.max(0, intSetting(config, name, "logSampleRate", 0));
+        this.converters = listSetting(config, name, "converters");
+        String exportDirSetting = trimmed(setting(config, name, "exportDir"));
+        this.exportDir = exportDirSetting != null ? exportDirSetting : "export";
+        this.exportCompression = ExportCompression.parse(setting(config, name, "exportCompression"));
+        this.exportMaxFileBytes = Math.max(1, intSetting(config, name, "exportMaxFileMb", DEFAULT_EXPORT_MAX_FILE_MB)) * 1024L * 1024L;
+        String rejectDirSetting = trimmed(setting(config, name, "rejectDir"));
+        this.rejectDir = rejectDirSetting != null ? rejectDirSetting : "rejects";
+        this.maxRejects = Math.max(0, intSetting(config, name, "maxRejects", DEFAULT_MAX_REJECTS));
+        this.changeQueueTable = trimmed(setting(config, name, "changeQueueTable"));
+        this.changeBatchSize = Math.max(1, intSetting(config, name, "changeBatchSize", DEFAULT_CHANGE_BATCH_SIZE));
+        this.changePollMillis = Math.max(1, intSetting(config, name, "changePollMillis", DEFAULT_CHANGE_POLL_MILLIS));
+    }
+
+    /**
+     * Reads the settings of one module.
+     * @param config The loaded config.properties.
+     * @param moduleName The module name as listed in the 'modules' key.
+     * @return The module configuration.
+     * @throws IllegalArgumentException If a setting is invalid, or partitions or pageSize is set without primaryKey.
+     */
+    public static ModuleConfig from(Properties config, String moduleName) {
+        ModuleConfig moduleConfig = new ModuleConfig(config, moduleName.trim());
+        // Without a key the module would silently run on one worker, unpaginated
+        if (moduleConfig.primaryKey == null && moduleConfig.partitions > 1) {
+            throw new IllegalArgumentException("Module '" + moduleConfig.name + "' needs primaryKey for partitions="
+                    + moduleConfig.partitions + ".");
+        }
+        if (moduleConfig.primaryKey == null && moduleConfig.pageSize > 0) {
+            throw new IllegalArgumentException("Module '" + moduleConfig.name + "' needs primaryKey for pageSize="
+                    + moduleConfig.pageSize + ".");
+        }
+        return moduleConfig;
+    }
+
+    /**
+     * @return true if the mandatory fetchSql, updateSql and dtoClass keys are present;
+     *         exported modules need no updateSql.
+     */
+    public boolean isComplete() {
+        return fetchSql != null && (updateSql != null || writeStrategy == WriteStrategy.EXPORT) && dtoClassName != null;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getFetchSql() {
+        return fetchSql;
+    }
+
+    public String getUpdateSql() {
+        return updateSql;
+    }
+
+    public String getDtoClassName() {
+        return dtoClassName;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getCommitInterval() {
+        return commitInterval;
+    }
+
+    /**
+     * @return The scheduling priority; modules with a higher value are started first.
+     */
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * @return The lower-case primary key column of the fetched rows, or null if not configured.
+     */
+    public String getPrimaryKey() {
+        return primaryKey;
+    }
+
+    /**
+     * @return The number of parallel workers; above 1 the module is split into primary-key ranges.
+     */
+    public int getPartitions() {
+        return partitions;
+    }
+
+    /**
+     * @return The number of key ranges created per worker, so idle workers can take over remaining ranges.
+     */
+    public int getRangesPerPartition() {
+        return rangesPerPartition;
+    }
+
+    /**
+     * @return true if range boundaries come from NTILE over the keys instead of splitting MIN..MAX evenly.
+     */
+    public boolean isNtilePartitioning() {
+        return ntilePartitioning;
+    }
+
+    public MappingMode getMappingMode() {
+        return mappingMode;
+    }
+
+    public WriteStrategy getWriteStrategy() {
+        return writeStrategy;
+    }
+
+    /**
+     * @return The table the JSON is written to, used by set-based write strategies.
+     */
+    public String getTargetTable() {
+        return targetTable;
+    }
+
+    /**
+     * @return The JSONB column of the target table, used by set-based write strategies.
+     */
+    public String getJsonColumn() {
+        return jsonColumn;
+    }
+
+    /**
+     * @return The lower-case BIGINT column holding the hash of the last written JSON, or null if
+     *         unchanged rows are not skipped. The fetch query must select it.
+     */
+    public String getHashColumn() {
+        return hashColumn;
+    }
+
+    /**
+     * @return The batched update writing the JSON and its hash, built from targetTable, jsonColumn,
+     *         hashColumn and primaryKey.
+     */
+    public String getHashedUpdateSql() {
+        if (targetTable == null || jsonColumn == null || primaryKey == null) {
+            throw new IllegalArgumentException("Module '" + name + "' needs targetTable, jsonColumn and primaryKey for hashColumn.");
+        }
+        return "UPDATE " + targetTable + " SET " + jsonColumn + " = ?::jsonb, " + hashColumn + " = ? WHERE " + primaryKey + " = ?";
+    }
+
+    /**
+     * @return The rows read per keyset page, or 0 to stream the whole fetch query through one cursor.
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * @return true if rows are read in pages of ascending primary key ({@code WHERE pk >= ? ORDER BY pk LIMIT n}),
+     *         each page in its own short transaction; needs pageSize and an integral primaryKey.
+     */
+    public boolean isKeysetPagination() {
+        return pageSize > 0 && primaryKey != null;
+    }
+
+    /**
+     * @return The table recording the progress of keyset-paginated runs, or null if runs are not resumable.
+     */
+    public String getCheckpointTable() {
+        return checkpointTable;
+    }
+
+    /**
+     * @return The threads mapping and serializing rows, shared by the module's workers; 0 encodes on the reading thread.
+     */
+    public int getEncodeThreads() {
+        return encodeThreads;
+    }
+
+    /**
+     * @return The chunks of rows a pipelined worker may queue between reading and writing.
+     */
+    public int getPipelineQueueSize() {
+        return pipelineQueueSize;
+    }
+
+    /**
+     * @return Log the generated JSON of every n-th row; 0 (the default) logs no rows.
+     */
+    public int getLogSampleRate() {
+        return logSampleRate;
+    }
+
+    /**
+     * @return The classes of the custom column converters added to the built-in conversions, in precedence order.
+     */
+    public List<String> getConverters() {
+        return converters;
+    }
+
+    /**
+     * @return The directory exported modules write their files to, one subdirectory per module.
+     */
+    public String getExportDir() {
+        return exportDir;
+    }
+
+    public ExportCompression getExportCompression() {
+        return exportCompression;
+    }
+
+    /**
+     * @return The size at which an export file is closed and the next one started.
+     */
+    public long getExportMaxFileBytes() {
+        return exportMaxFileBytes;
+    }
+
+    /**
+     * @return The directory of the reject files, which list the rows whose update failed.
+     */
+    public String getRejectDir() {
+        return rejectDir;
+    }
+
+    /**
+     * @return The failed rows tolerated before the module fails; 0 fails the module on the first failed batch.
+     */
+    public int getMaxRejects() {
+        return maxRejects;
+    }
+
+    /**
+     * @return The queue table the change triggers write to, or null if the module is not refreshed continuously.
+     */
+    public String getChangeQueueTable() {
+        return changeQueueTable;
+    }
+
+    /**
+     * @return The most queued changes refreshed per micro-batch in continuous mode.
+     */
+    public int getChangeBatchSize() {
+        return changeBatchSize;
+    }
+
+    /**
+     * @return The longest an idle continuous worker waits for a change notification before checking the queue.
+     */
+    public int getChangePollMillis() {
+        return changePollMillis;
+    }
+
+    private static String trimmed(String value) {
+        return value != null && !value.trim().isEmpty() ? value.trim() : null;
+    }
+
+    static String setting(Properties config, String moduleName, String key) {
+        String value = config.getProperty(moduleName + "." + key);
+        if (value == null) {
+            value = config.getProperty(key);
+        }
+        return value != null ? value.trim() : null;
+    }
+
+    private static List<String> listSetting(Properties config, String moduleName, String key) {
+        String value = setting(config, moduleName, key);
+        if (value == null || value.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> entries = new ArrayList<>();
+        for (String entry : value.split(",")) {
+            if (!entry.trim().isEmpty()) {
+                entries.add(entry.trim());
+            }
+        }
+        return Collections.unmodifiableList(entries);
+    }
+
+    static int intSetting(Properties config, String moduleName, String key, int defaultValue) {
+        return parseInt(setting(config, moduleName, key), moduleName + "." + key, defaultValue);
+    }
+
+    /**
+     * Reads a run-wide integer setting that has no per-module override.
+     */
+    static int globalIntSetting(Properties config, String key, int defaultValue) {
+        String value = config.getProperty(key);
+        return parseInt(value != null ? value.trim() : null, key, defaultValue);
+    }
+
+    private static int parseInt(String value, String key, int defaultValue) {
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + key + ": " + value, e);
+        }
+    }
+
+    /**
+     * How rows are turned into JSON.
+     */
+    public enum MappingMode {
+        /** Direct when the DTO has no custom mapping logic and all its fields can be written directly, DTO otherwise. */
+        AUTO,
+        /** Map each row to a DTO instance and serialize it with Jackson. */
+        DTO,
+        /** Write each row straight to JSON from the DTO's @JsonProperty fields, without a DTO instance. */
+        DIRECT,
+        /**
+         * Build the JSON inside PostgreSQL from the DTO's @JsonProperty fields, one UPDATE per key range,
+         * so no rows cross the network. DTOs with custom mapping logic fall back to AUTO.
+         */
+        PUSHDOWN;
+
+        static MappingMode parse(String value) {
+            if (value == null || value.isEmpty()) {
+                return AUTO;
+            }
+            try {
+                return valueOf(value.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid mapping mode: " + value, e);
+            }
+        }
+    }
+
+    /**
+     * How generated JSON is written back.
+     */
+    public enum WriteStrategy {
+        /** Batched UPDATE statements using the module's updateSql. */
+        BATCH,
+        /** PostgreSQL COPY into a staging table, merged with one UPDATE ... FROM per commit interval. */
+        COPY,
+        /** Newline-delimited JSON files in exportDir instead of the database, one file series per worker. */
+        EXPORT;
+
+        static WriteStrategy parse(String value) {
+            if (value == null || value.isEmpty()) {
+                return BATCH;
+            }
+            try {
+                return valueOf(value.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid write strategy: " + value, e);
+            }
+        }
+    }
+
+    /**
+     * How export files are compressed.
+     */
+    public enum ExportCompression {
+        NONE(".ndjson"),
+        GZIP(".ndjson.gz"),
+        /** Needs com.github.luben:zstd-jni on the classpath. */
+        ZSTD(".ndjson.zst");
+
+        private final String extension;
+
+        ExportCompression(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        static ExportCompression parse(String value) {
+            if (value == null || value.isEmpty()) {
+                return NONE;
+            }
+            try {
+                return valueOf(value.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid export compression: " + value, e);
+            }
+        }
+    }
+}
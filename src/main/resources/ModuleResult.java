@@ -0,0 +1,101 @@
+package com.dbtojson;
+
+/**
+ * Outcome of processing one module, reported in the run summary.
+ */
+public class ModuleResult {
+
+    private final String moduleName;
+    private final boolean success;
+    private final long rowsRead;
+    private final long rowsWritten;
+    private final long rowsSkipped;
+    private final long rowsRejected;
+    private final long durationMillis;
+    private final Throwable error;
+    private final ModuleStats stats;
+
+    private ModuleResult(String moduleName, boolean success, ModuleStats stats, long durationMillis, Throwable error) {
+        this.moduleName = moduleName;
+        this.success = success;
+        this.rowsRead = stats.getRowsRead();
+        this.rowsWritten = stats.getRowsWritten();
+        this.rowsSkipped = stats.getRowsSkipped();
+        this.rowsRejected = stats.getRowsRejected();
+        this.durationMillis = durationMillis;
+        this.error = error;
+        this.stats = stats;
+    }
+
+    public static ModuleResult succeeded(String moduleName, ModuleStats stats, long durationMillis) {
+        return new ModuleResult(moduleName, true, stats, durationMillis, null);
+    }
+
+    /**
+     * @param stats The metrics collected up to the failure.
+     */
+    public static ModuleResult failed(String moduleName, ModuleStats stats, long durationMillis, Throwable error) {
+        return new ModuleResult(moduleName, false, stats, durationMillis, error);
+    }
+
+    public String getModuleName() {
+        return moduleName;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    /**
+     * @return The number of rows not written because their JSON was unchanged.
+     */
+    public long getRowsSkipped() {
+        return rowsSkipped;
+    }
+
+    /**
+     * @return The number of rows whose update failed and that were written to the reject file.
+     */
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+
+    /**
+     * @return The module's metrics, for the run report.
+     */
+    public ModuleStats getStats() {
+        return stats;
+    }
+
+    /**
+     * @return The rows read per second of module run time.
+     */
+    public double getRowsPerSecond() {
+        return durationMillis > 0 ? rowsRead * 1000.0 / durationMillis : 0;
+    }
+
+    @Override
+    public String toString() {
+        if (success) {
+            return moduleName + ": SUCCESS - read " + rowsRead + ", written " + rowsWritten + ", skipped " + rowsSkipped
+                    + " unchanged" + (rowsRejected > 0 ? ", rejected " + rowsRejected : "") + " in " + durationMillis + " ms";
+        }
+        return moduleName + ": FAILED after " + durationMillis + " ms - " + error;
+    }
+}
@@ -0,0 +1,225 @@
+package com.dbtojson;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters and stage metrics of one module run, shared by all of its workers.
+ * Latencies are recorded in nanoseconds: fetch and map per row, serialize per document and write per
+ * executed batch (an executeBatch, or a COPY with its merge).
+ */
+public class ModuleStats {
+
+    private final int logSampleRate;
+    private final AtomicLong sampleCounter = new AtomicLong();
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private final AtomicLong rowsSkipped = new AtomicLong();
+    private final AtomicLong rowsAffected = new AtomicLong();
+    private final AtomicLong rowsRejected = new AtomicLong();
+    private final AtomicLong readerBlockedNanos = new AtomicLong();
+    private final AtomicLong writerWaitedNanos = new AtomicLong();
+    private final AtomicLong maxQueueDepth = new AtomicLong();
+    private final AtomicLong jsonBytes = new AtomicLong();
+    private final AtomicLong roundTrips = new AtomicLong();
+    private final AtomicLong allocatedBytes = new AtomicLong();
+    private final Histogram fetchLatency = new Histogram();
+    private final Histogram mapLatency = new Histogram();
+    private final Histogram serializeLatency = new Histogram();
+    private final Histogram writeLatency = new Histogram();
+    private final Histogram batchSizes = new Histogram();
+    private final long gcCountAtStart = JvmMetrics.gcCount();
+    private final long gcMillisAtStart = JvmMetrics.gcMillis();
+    private volatile long gcCount = -1;
+    private volatile long gcMillis = -1;
+
+    /**
+     * @param logSampleRate Log the JSON of every n-th row; 0 logs none.
+     */
+    public ModuleStats(int logSampleRate) {
+        this.logSampleRate = logSampleRate;
+    }
+
+    /**
+     * @return true if the current row's JSON should be logged.
+     */
+    public boolean sampleRow() {
+        return logSampleRate > 0 && sampleCounter.incrementAndGet() % logSampleRate == 0;
+    }
+
+    public void addRowsRead(long count) {
+        rowsRead.addAndGet(count);
+    }
+
+    /**
+     * Adds the totals of a worker's writer once it has committed.
+     */
+    public void addWriter(JsonRowWriter writer) {
+        rowsWritten.addAndGet(writer.getRowsWritten());
+        rowsAffected.addAndGet(writer.getRowsAffected());
+    }
+
+    /**
+     * Adds rows a long-running writer has committed since its last report.
+     */
+    public void addWritten(long rowsWritten, long rowsAffected) {
+        this.rowsWritten.addAndGet(rowsWritten);
+        this.rowsAffected.addAndGet(rowsAffected);
+    }
+
+    /**
+     * Adds the outcome of a statement that built and wrote the JSON inside the database.
+     * @param rowsCovered The rows of the fetch query the statement covered.
+     * @param rowsUpdated The rows whose JSON changed and was written.
+     */
+    public void addPushedDown(long rowsCovered, long rowsUpdated) {
+        rowsRead.addAndGet(rowsCovered);
+        rowsWritten.addAndGet(rowsUpdated);
+        rowsAffected.addAndGet(rowsUpdated);
+        rowsSkipped.addAndGet(rowsCovered - rowsUpdated);
+    }
+
+    /**
+     * Counts a row whose JSON was unchanged and therefore not written.
+     */
+    public void addRowSkipped() {
+        rowsSkipped.incrementAndGet();
+    }
+
+    /**
+     * Counts a row whose update failed and was written to the reject file instead.
+     * @return The rows rejected so far.
+     */
+    public long addRowRejected() {
+        return rowsRejected.incrementAndGet();
+    }
+
+    /**
+     * Adds time the pipeline reader spent waiting for room in a full queue, i.e. encoding or writing was slower.
+     */
+    public void addReaderBlocked(long nanos) {
+        readerBlockedNanos.addAndGet(nanos);
+    }
+
+    /**
+     * Adds time the pipeline writer spent waiting for the next encoded chunk, i.e. reading or encoding was slower.
+     */
+    public void addWriterWaited(long nanos) {
+        writerWaitedNanos.addAndGet(nanos);
+    }
+
+    /**
+     * Records the number of chunks queued between reader and writer.
+     */
+    public void recordQueueDepth(int depth) {
+        maxQueueDepth.accumulateAndGet(depth, Math::max);
+    }
+
+    public void addJsonBytes(long bytes) {
+        jsonBytes.addAndGet(bytes);
+    }
+
+    /**
+     * Counts JDBC round trips: query executions, cursor fetches, batch executions, COPY ends and commits.
+     */
+    public void addRoundTrips(long count) {
+        roundTrips.addAndGet(count);
+    }
+
+    /**
+     * Adds the bytes a thread allocated while working for this module.
+     */
+    public void addAllocatedBytes(long bytes) {
+        allocatedBytes.addAndGet(Math.max(0, bytes));
+    }
+
+    /**
+     * Records one executed batch.
+     * @param rows The rows in the batch.
+     * @param nanos The time the batch took.
+     */
+    public void recordBatch(int rows, long nanos) {
+        batchSizes.record(rows);
+        writeLatency.record(nanos);
+    }
+
+    /**
+     * Freezes the garbage collection counts at the end of the module. Collections are JVM-wide,
+     * so with parallel modules they include work done for the others.
+     */
+    public void finish() {
+        gcCount = JvmMetrics.gcCount() - gcCountAtStart;
+        gcMillis = JvmMetrics.gcMillis() - gcMillisAtStart;
+    }
+
+    public Histogram getFetchLatency() {
+        return fetchLatency;
+    }
+
+    public Histogram getMapLatency() {
+        return mapLatency;
+    }
+
+    public Histogram getSerializeLatency() {
+        return serializeLatency;
+    }
+
+    public Histogram getWriteLatency() {
+        return writeLatency;
+    }
+
+    public Histogram getBatchSizes() {
+        return batchSizes;
+    }
+
+    public long getRowsRead() {
+        return rowsRead.get();
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten.get();
+    }
+
+    public long getRowsSkipped() {
+        return rowsSkipped.get();
+    }
+
+    public long getRowsAffected() {
+        return rowsAffected.get();
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected.get();
+    }
+
+    public long getReaderBlockedMillis() {
+        return readerBlockedNanos.get() / 1_000_000;
+    }
+
+    public long getWriterWaitedMillis() {
+        return writerWaitedNanos.get() / 1_000_000;
+    }
+
+    public long getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    public long getJsonBytes() {
+        return jsonBytes.get();
+    }
+
+    public long getRoundTrips() {
+        return roundTrips.get();
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes.get();
+    }
+
+    public long getGcCount() {
+        return gcCount >= 0 ? gcCount : JvmMetrics.gcCount() - gcCountAtStart;
+    }
+
+    public long getGcMillis() {
+        return gcMillis >= 0 ? gcMillis : JvmMetrics.gcMillis() - gcMillisAtStart;
+    }
+}
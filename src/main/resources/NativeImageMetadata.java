@@ -0,0 +1,128 @@
+package com.dbtojson;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Generates the GraalVM native-image reflection and resource metadata for the modules of a configuration.
+ * Classes named in config.properties are only known at run time, so the image needs them registered:
+ * DTO classes, and the classes of their fields, with all constructors, methods and fields for the mapping
+ * plans and Jackson; generated row mappers with their (RowSchema, ConverterRegistry) constructor; converters and the JDBC driver
+ * with their no-arg constructor. The native build profile runs it before the image is built.
+ * <p>
+ * Usage: NativeImageMetadata &lt;config.properties&gt; &lt;output directory&gt;
+ */
+public final class NativeImageMetadata {
+
+    private NativeImageMetadata() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("Usage: NativeImageMetadata <config.properties> <output directory>");
+            System.exit(2);
+        }
+        Properties config = DataProcessor.readConfig(args[0]);
+        Map<String, Map<String, Object>> reflection = new TreeMap<>();
+
+        for (String module : config.getProperty("modules", "").split(",")) {
+            if (module.trim().isEmpty()) {
+                continue;
+            }
+            ModuleConfig moduleConfig = ModuleConfig.from(config, module);
+            if (moduleConfig.getDtoClassName() == null) {
+                continue;
+            }
+            Class<?> dtoClass = Class.forName(moduleConfig.getDtoClassName());
+            registerDto(reflection, dtoClass);
+            try {
+                Class<?> mapperClass = Class.forName(dtoClass.getName() + "RowMapper");
+                Map<String, Object> entry = entry(mapperClass);
+                entry.put("methods", Collections.singletonList(method("<init>", RowSchema.class.getName(),
+                        ConverterRegistry.class.getName())));
+                reflection.put(mapperClass.getName(), entry);
+            } catch (ClassNotFoundException e) {
+                // Mapped without generated code
+            }
+            for (String converter : moduleConfig.getConverters()) {
+                reflection.put(converter, publicConstructors(converter));
+            }
+        }
+        String driver = config.getProperty("dbDriver");
+        if (driver != null && !driver.trim().isEmpty()) {
+            reflection.put(driver.trim(), publicConstructors(driver.trim()));
+        }
+
+        Map<String, Object> resources = new LinkedHashMap<>();
+        resources.put("resources", Collections.singletonMap("includes",
+                Collections.singletonList(Collections.singletonMap("pattern", "\\Qconfig.properties\\E"))));
+
+        Path outputDir = Paths.get(args[1]);
+        Files.createDirectories(outputDir);
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        mapper.writeValue(outputDir.resolve("reflect-config.json").toFile(), new ArrayList<>(reflection.values()));
+        mapper.writeValue(outputDir.resolve("resource-config.json").toFile(), resources);
+        System.out.println("Registered " + reflection.size() + " classes for reflection in " + outputDir + ".");
+    }
+
+    /**
+     * Registers a DTO class, its superclasses and the application classes of its fields.
+     */
+    private static void registerDto(Map<String, Map<String, Object>> reflection, Class<?> type) {
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            if (current.isPrimitive() || current.isEnum() || current.getName().startsWith("java.")
+                    || reflection.containsKey(current.getName())) {
+                return;
+            }
+            Map<String, Object> entry = entry(current);
+            entry.put("allDeclaredConstructors", true);
+            entry.put("allPublicConstructors", true);
+            entry.put("allDeclaredMethods", true);
+            entry.put("allPublicMethods", true);
+            entry.put("allDeclaredFields", true);
+            entry.put("allPublicFields", true);
+            reflection.put(current.getName(), entry);
+
+            for (Field field : current.getDeclaredFields()) {
+                Class<?> fieldType = field.getType();
+                while (fieldType.isArray()) {
+                    fieldType = fieldType.getComponentType();
+                }
+                registerDto(reflection, fieldType);
+            }
+        }
+    }
+
+    private static Map<String, Object> publicConstructors(String className) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("name", className);
+        entry.put("allPublicConstructors", true);
+        return entry;
+    }
+
+    private static Map<String, Object> entry(Class<?> type) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("name", type.getName());
+        return entry;
+    }
+
+    private static Map<String, Object> method(String name, String... parameterTypes) {
+        Map<String, Object> method = new LinkedHashMap<>();
+        method.put("name", name);
+        List<String> types = new ArrayList<>();
+        Collections.addAll(types, parameterTypes);
+        method.put("parameterTypes", types);
+        return method;
+    }
+}
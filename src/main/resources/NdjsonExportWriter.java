@@ -0,0 +1,290 @@
+package com.dbtojson;
+
+import com.dbtojson.ModuleConfig.ExportCompression;
+import com.github.luben.zstd.ZstdDirectBufferCompressingStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.util.HexFormat;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes generated JSON to newline-delimited JSON files instead of the database, one file series per worker.
+ * Rows are appended to a direct buffer that is handed to a FileChannel, compressed first if configured, once
+ * it is full or flushed; a file costs one write call per buffer and no copies besides the one into the buffer.
+ * A file is finished and the next one started when it reaches exportMaxFileBytes. Finished files are added
+ * to the module's {@link ExportManifest} with their row count and SHA-256 checksum.
+ */
+public class NdjsonExportWriter implements JsonRowWriter {
+
+    private static final int BUFFER_SIZE = 8 * 1024 * 1024;
+    private static final int ZSTD_LEVEL = 3;
+
+    private final ExportManifest manifest;
+    private final int partition;
+    private final ExportCompression compression;
+    private final long maxFileBytes;
+    private final ModuleStats stats;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final MessageDigest digest;
+
+    private FileChannel channel;
+    private FileSink sink;
+    private Path file;
+    private int fileIndex;
+    private long fileRows;
+    private long fileBytes;
+    private long fileUncompressedBytes;
+    private int bufferedRows;
+    private long rowsWritten;
+
+    /**
+     * @param manifest The export of the module; assigns this writer its partition number.
+     * @param moduleConfig The module settings.
+     * @param stats Receives the rows and latency of every buffer written.
+     */
+    public NdjsonExportWriter(ExportManifest manifest, ModuleConfig moduleConfig, ModuleStats stats) {
+        this.manifest = manifest;
+        this.partition = manifest.nextPartition();
+        this.compression = moduleConfig.getExportCompression();
+        this.maxFileBytes = moduleConfig.getExportMaxFileBytes();
+        this.stats = stats;
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        if (compression == ExportCompression.ZSTD) {
+            try {
+                Class.forName("com.github.luben.zstd.ZstdDirectBufferCompressingStream");
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException("Module '" + moduleConfig.getName()
+                        + "' uses zstd export compression, which needs com.github.luben:zstd-jni on the classpath.", e);
+            }
+        }
+    }
+
+    @Override
+    public void write(Object primaryKey, JsonBuffer json, long hash) throws SQLException {
+        try {
+            int length = json.size() + 1;
+            // Uncompressed files are split exactly; compressed ones once the bytes on disk reach the limit
+            long pendingBytes = compression == ExportCompression.NONE ? buffer.position() + length : 0;
+            if (fileRows > 0 && fileBytes + pendingBytes > maxFileBytes) {
+                finishFile();
+            }
+            if (channel == null) {
+                openFile();
+            }
+
+            byte[] bytes = json.array();
+            int offset = 0;
+            while (json.size() - offset >= buffer.remaining()) {
+                int chunk = buffer.remaining();
+                buffer.put(bytes, offset, chunk);
+                offset += chunk;
+                drain();
+            }
+            buffer.put(bytes, offset, json.size() - offset);
+            buffer.put((byte) '\n');
+        } catch (IOException e) {
+            throw new SQLException("Cannot write export file " + file, e);
+        }
+        fileRows++;
+        fileUncompressedBytes += json.size() + 1;
+        bufferedRows++;
+        rowsWritten++;
+    }
+
+    /**
+     * Hands the buffered rows to the file. They are durable, and listed in the manifest, once the file is finished.
+     */
+    @Override
+    public void flush() throws SQLException {
+        try {
+            drain();
+        } catch (IOException e) {
+            throw new SQLException("Cannot write export file " + file, e);
+        }
+    }
+
+    @Override
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    /**
+     * @return 0; exporting updates no rows.
+     */
+    @Override
+    public long getRowsAffected() {
+        return 0;
+    }
+
+    /**
+     * Finishes the current file.
+     */
+    @Override
+    public void close() throws SQLException {
+        try {
+            if (channel != null) {
+                finishFile();
+            }
+        } catch (IOException e) {
+            throw new SQLException("Cannot finish export file " + file, e);
+        }
+    }
+
+    private void openFile() throws IOException {
+        file = manifest.getDirectory().resolve(String.format("%s-%03d-%05d%s",
+                manifest.getModule(), partition, fileIndex++, compression.getExtension()));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        fileRows = 0;
+        fileBytes = 0;
+        fileUncompressedBytes = 0;
+        switch (compression) {
+            case GZIP:
+                sink = new GzipSink();
+                break;
+            case ZSTD:
+                sink = new ZstdSink();
+                break;
+            default:
+                sink = this::writeFully;
+        }
+    }
+
+    private void finishFile() throws IOException {
+        try {
+            drain();
+            sink.finish();
+            channel.force(true);
+        } finally {
+            channel.close();
+            channel = null;
+            sink = null;
+        }
+        manifest.add(new ExportManifest.ExportFile(file.getFileName().toString(), partition, fileRows,
+                fileUncompressedBytes, fileBytes, HexFormat.of().formatHex(digest.digest())));
+    }
+
+    private void drain() throws IOException {
+        if (buffer.position() == 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        buffer.flip();
+        sink.write(buffer);
+        buffer.clear();
+        stats.recordBatch(bufferedRows, System.nanoTime() - start);
+        bufferedRows = 0;
+    }
+
+    /**
+     * Writes the remaining bytes to the current file and adds them to its checksum.
+     */
+    private void writeFully(ByteBuffer data) throws IOException {
+        digest.update(data.duplicate());
+        while (data.hasRemaining()) {
+            fileBytes += channel.write(data);
+        }
+    }
+
+    /**
+     * Receives the uncompressed bytes of one file.
+     */
+    private interface FileSink {
+        /** Consumes the remaining bytes of the buffer. */
+        void write(ByteBuffer data) throws IOException;
+
+        /** Writes what the compressor still holds and its trailer. */
+        default void finish() throws IOException {
+        }
+    }
+
+    /**
+     * A single-member gzip file: header, raw deflate stream, CRC-32 and length trailer.
+     * Deflates at the fastest level, so compression keeps up with the disk.
+     */
+    private final class GzipSink implements FileSink {
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        private final CRC32 crc = new CRC32();
+        private final ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_SIZE / 4);
+
+        GzipSink() throws IOException {
+            writeFully(ByteBuffer.wrap(new byte[] {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff}));
+        }
+
+        @Override
+        public void write(ByteBuffer data) throws IOException {
+            crc.update(data.duplicate());
+            deflater.setInput(data);
+            while (!deflater.needsInput()) {
+                deflater.deflate(out);
+                writeOut();
+            }
+            // The deflater keeps the buffer as its input, but the caller refills it
+            deflater.setInput(new byte[0]);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            try {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    deflater.deflate(out);
+                    writeOut();
+                }
+                ByteBuffer trailer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+                trailer.putInt((int) crc.getValue()).putInt((int) deflater.getBytesRead()).flip();
+                writeFully(trailer);
+            } finally {
+                deflater.end();
+            }
+        }
+
+        private void writeOut() throws IOException {
+            out.flip();
+            writeFully(out);
+            out.clear();
+        }
+    }
+
+    /**
+     * A zstd frame written through zstd-jni's direct-buffer stream.
+     */
+    private final class ZstdSink implements FileSink {
+        private final ZstdDirectBufferCompressingStream stream;
+
+        ZstdSink() throws IOException {
+            ByteBuffer out = ByteBuffer.allocateDirect(ZstdDirectBufferCompressingStream.recommendedOutputBufferSize());
+            stream = new ZstdDirectBufferCompressingStream(out, ZSTD_LEVEL) {
+                @Override
+                protected ByteBuffer flushBuffer(ByteBuffer toFlush) throws IOException {
+                    toFlush.flip();
+                    writeFully(toFlush);
+                    toFlush.clear();
+                    return toFlush;
+                }
+            };
+        }
+
+        @Override
+        public void write(ByteBuffer data) throws IOException {
+            stream.compress(data);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            stream.close();
+        }
+    }
+}
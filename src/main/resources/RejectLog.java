@@ -0,0 +1,79 @@
+package com.dbtojson;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The rows of one module whose update failed, shared by all of its writers. Each rejected row is appended to
+ * &lt;rejectDir&gt;/&lt;module&gt;-rejects.ndjson as one JSON line with its primary key and the database error;
+ * the file is only created once a row is rejected. Once more than maxRejects rows have been rejected the
+ * failure is no longer treated as a bad row and the module fails.
+ */
+public class RejectLog implements AutoCloseable {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String module;
+    private final Path file;
+    private final int maxRejects;
+    private final ModuleStats stats;
+    private BufferedWriter out;
+
+    /**
+     * Removes the reject file of the module's previous run.
+     */
+    public RejectLog(ModuleConfig moduleConfig, ModuleStats stats) throws IOException {
+        this.module = moduleConfig.getName();
+        this.file = Paths.get(moduleConfig.getRejectDir(), module + "-rejects.ndjson").toAbsolutePath();
+        this.maxRejects = moduleConfig.getMaxRejects();
+        this.stats = stats;
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Records a row whose update failed.
+     * @param primaryKey The primary key of the row.
+     * @param error The failure of the row's own update.
+     * @throws SQLException The error, if the module has now rejected more than maxRejects rows.
+     */
+    public synchronized void reject(Object primaryKey, SQLException error) throws SQLException {
+        long rejected = stats.addRowRejected();
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("module", module);
+        line.put("primaryKey", primaryKey);
+        line.put("sqlState", error.getSQLState());
+        line.put("error", error.getMessage());
+        try {
+            if (out == null) {
+                Files.createDirectories(file.getParent());
+                out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+            }
+            out.write(objectMapper.writeValueAsString(line));
+            out.newLine();
+            out.flush();
+        } catch (IOException e) {
+            error.addSuppressed(e);
+            throw new SQLException("Cannot write the reject file " + file, error);
+        }
+        System.err.println("[" + module + "] Rejected row " + primaryKey + ": " + error.getMessage());
+        if (rejected > maxRejects) {
+            throw new SQLException("More than " + maxRejects + " rows of module '" + module + "' were rejected, see "
+                    + file + ".", error.getSQLState(), error);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.dbtojson;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * One fetched row, addressed by column index through its shared {@link RowSchema}.
+ * Reference values are kept in a flat array; integral and floating-point columns are kept unboxed
+ * in a primitive slot array (doubles as raw long bits).
+ */
+public final class Row {
+
+    /** Marks a non-null column whose value lives in the primitive slot array. */
+    private static final Object PRIMITIVE = new Object();
+
+    private final RowSchema schema;
+    private final Object[] values;
+    private final long[] primitives;
+
+    private Row(RowSchema schema) {
+        this.schema = schema;
+        this.values = new Object[schema.getColumnCount()];
+        this.primitives = schema.primitiveCount() > 0 ? new long[schema.primitiveCount()] : null;
+    }
+
+    /**
+     * Reads the current row of a result set.
+     * @param rs The result set, positioned on a row.
+     * @param schema The schema of the result set.
+     * @return The row.
+     */
+    public static Row read(ResultSet rs, RowSchema schema) throws SQLException {
+        Row row = new Row(schema);
+        for (int i = 0; i < row.values.length; i++) {
+            switch (schema.kind(i)) {
+                case RowSchema.KIND_LONG: {
+                    long value = rs.getLong(i + 1);
+                    if (!rs.wasNull()) {
+                        row.primitives[schema.primitiveSlot(i)] = value;
+                        row.values[i] = PRIMITIVE;
+                    }
+                    break;
+                }
+                case RowSchema.KIND_DOUBLE: {
+                    double value = rs.getDouble(i + 1);
+                    if (!rs.wasNull()) {
+                        row.primitives[schema.primitiveSlot(i)] = Double.doubleToRawLongBits(value);
+                        row.values[i] = PRIMITIVE;
+                    }
+                    break;
+                }
+                default:
+                    row.values[i] = rs.getObject(i + 1);
+            }
+        }
+        return row;
+    }
+
+    public RowSchema getSchema() {
+        return schema;
+    }
+
+    public boolean isNull(int index) {
+        return values[index] == null;
+    }
+
+    /**
+     * @return The value of the column, boxed for primitive columns; null for SQL NULL.
+     */
+    public Object get(int index) {
+        Object value = values[index];
+        if (value != PRIMITIVE) {
+            return value;
+        }
+        long bits = primitives[schema.primitiveSlot(index)];
+        return schema.kind(index) == RowSchema.KIND_LONG ? (Object) bits : (Object) Double.longBitsToDouble(bits);
+    }
+
+    /**
+     * Looks up a value by column name. Prefer {@link #get(int)} with an index resolved once from the schema.
+     * @return The value, or null if the column is NULL or absent.
+     */
+    public Object get(String column) {
+        int index = schema.indexOf(column);
+        return index >= 0 ? get(index) : null;
+    }
+
+    /**
+     * @return The column as a long without boxing for integral columns; 0 for SQL NULL.
+     */
+    public long getLong(int index) {
+        Object value = values[index];
+        if (value == PRIMITIVE) {
+            long bits = primitives[schema.primitiveSlot(index)];
+            return schema.kind(index) == RowSchema.KIND_LONG ? bits : (long) Double.longBitsToDouble(bits);
+        }
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+
+    /**
+     * @return The column as a double without boxing for numeric primitive columns; 0 for SQL NULL.
+     */
+    public double getDouble(int index) {
+        Object value = values[index];
+        if (value == PRIMITIVE) {
+            long bits = primitives[schema.primitiveSlot(index)];
+            return schema.kind(index) == RowSchema.KIND_DOUBLE ? Double.longBitsToDouble(bits) : (double) bits;
+        }
+        return value != null ? ((Number) value).doubleValue() : 0d;
+    }
+}
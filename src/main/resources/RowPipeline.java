@@ -0,0 +1,279 @@
+package com.dbtojson;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overlaps reading, encoding and writing of one worker's rows.
+ * The worker's own thread reads rows and hands them on in chunks; chunks are mapped and serialized
+ * on the module's shared encode pool; a dedicated writer thread passes the JSON to the writer in
+ * the original row order.
+ * <p>
+ * Chunks travel from reader to writer through a bounded queue. When it is full the reader blocks,
+ * so at most queueCapacity chunks are held in memory however far the encoders or the writer fall behind.
+ */
+public class RowPipeline implements AutoCloseable {
+
+    private static final int CHUNK_ROWS = 256;
+    private static final Future<Chunk> END = CompletableFuture.completedFuture(null);
+
+    private final ExecutorService encodePool;
+    private final ExecutorService writerThread;
+    private final JsonFactory jsonFactory;
+    private final int queueCapacity;
+    private final ModuleStats stats;
+
+    /**
+     * @param encodePool The pool mapping and serializing chunks, shared by the module's workers.
+     * @param queueCapacity The number of chunks that may wait between reader and writer.
+     * @param jsonFactory Creates a generator per chunk.
+     * @param stats Receives skipped rows and stage timings.
+     */
+    public RowPipeline(ExecutorService encodePool, int queueCapacity, JsonFactory jsonFactory, ModuleStats stats) {
+        this.encodePool = encodePool;
+        this.writerThread = Executors.newSingleThreadExecutor();
+        this.jsonFactory = jsonFactory;
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.stats = stats;
+    }
+
+    /**
+     * Starts the writer for one query.
+     * @param encoder Turns a row into JSON; called concurrently from the encode pool.
+     * @param primaryKeyIndex The primary key column.
+     * @param hashIndex The stored hash column, or -1 if unchanged rows are not skipped.
+     * @param writer The writer; only the writer thread uses it until {@link Stream#finish()} returns.
+     * @return The stream accepting the query's rows.
+     */
+    public Stream start(Encoder encoder, int primaryKeyIndex, int hashIndex, JsonRowWriter writer) {
+        return new Stream(encoder, primaryKeyIndex, hashIndex, writer);
+    }
+
+    @Override
+    public void close() {
+        writerThread.shutdownNow();
+    }
+
+    /**
+     * Writes the JSON of one row to a generator.
+     */
+    @FunctionalInterface
+    public interface Encoder {
+        /**
+         * @return false if the row could not be mapped and nothing was written.
+         */
+        boolean encode(Row row, JsonGenerator generator) throws IOException;
+    }
+
+    /**
+     * The rows of one query on their way through the pipeline.
+     */
+    public final class Stream {
+        private final Encoder encoder;
+        private final int primaryKeyIndex;
+        private final int hashIndex;
+        private final BlockingQueue<Future<Chunk>> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final Future<?> writerTask;
+        private volatile boolean aborted;
+        private Chunk current = new Chunk();
+
+        private Stream(Encoder encoder, int primaryKeyIndex, int hashIndex, JsonRowWriter writer) {
+            this.encoder = encoder;
+            this.primaryKeyIndex = primaryKeyIndex;
+            this.hashIndex = hashIndex;
+            this.writerTask = writerThread.submit(() -> {
+                write(writer);
+                return null;
+            });
+        }
+
+        /**
+         * Hands on one row; blocks while the queue is full.
+         */
+        public void accept(Row row) throws Exception {
+            current.rows[current.size++] = row;
+            if (current.size == CHUNK_ROWS) {
+                submit();
+            }
+        }
+
+        /**
+         * Hands on the remaining rows and waits until the writer has written all of them.
+         * @throws Exception The first failure of an encoder or the writer.
+         */
+        public void finish() throws Exception {
+            if (current.size > 0) {
+                submit();
+            }
+            enqueue(END);
+            try {
+                writerTask.get();
+            } catch (ExecutionException e) {
+                throw unwrap(e);
+            }
+        }
+
+        /**
+         * Discards queued rows after a read failure and waits for the writer to stop,
+         * so the caller can safely roll back and close the writer.
+         */
+        public void abort() {
+            aborted = true;
+            queue.clear();
+            queue.offer(END);
+            try {
+                writerTask.get();
+            } catch (ExecutionException e) {
+                // The read failure is reported by the caller
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void submit() throws Exception {
+            Chunk chunk = current;
+            current = new Chunk();
+            enqueue(encodePool.submit(() -> encode(chunk)));
+        }
+
+        private void enqueue(Future<Chunk> future) throws Exception {
+            if (!queue.offer(future)) {
+                awaitSpace(future);
+            }
+            stats.recordQueueDepth(queue.size());
+        }
+
+        /**
+         * Waits until the full queue takes the chunk; only this time is counted as the reader being blocked.
+         */
+        private void awaitSpace(Future<Chunk> future) throws Exception {
+            long start = System.nanoTime();
+            while (!queue.offer(future, 100, TimeUnit.MILLISECONDS)) {
+                if (writerTask.isDone()) {
+                    // The writer failed; surface its error instead of blocking forever
+                    try {
+                        writerTask.get();
+                    } catch (ExecutionException e) {
+                        throw unwrap(e);
+                    }
+                    throw new IllegalStateException("The writer stopped before the end of the stream.");
+                }
+            }
+            stats.addReaderBlocked(System.nanoTime() - start);
+        }
+
+        private Chunk encode(Chunk chunk) throws IOException {
+            long allocatedAtStart = JvmMetrics.threadAllocatedBytes();
+            JsonBuffer buffer = new JsonBuffer();
+            JsonGenerator generator = jsonFactory.createGenerator(buffer);
+            // Every row is a separate document; no separator between root values
+            generator.setRootValueSeparator(null);
+
+            for (int i = 0; i < chunk.size; i++) {
+                Row row = chunk.rows[i];
+                int start = buffer.size();
+                if (!encoder.encode(row, generator)) {
+                    System.err.println("Failed to map row to DTO. Skipping JSON generation and update.");
+                    continue;
+                }
+                generator.flush();
+
+                long hash = 0;
+                if (hashIndex >= 0) {
+                    hash = ContentHash.hash(buffer.array(), start, buffer.size() - start);
+                    if (!row.isNull(hashIndex) && row.getLong(hashIndex) == hash) {
+                        buffer.truncate(start);
+                        stats.addRowSkipped();
+                        continue;
+                    }
+                }
+                chunk.addDocument(row.get(primaryKeyIndex), buffer.size(), hash);
+            }
+            chunk.json = buffer;
+            // The rows are no longer needed; only the JSON waits for the writer
+            chunk.rows = null;
+            stats.addAllocatedBytes(JvmMetrics.threadAllocatedBytes() - allocatedAtStart);
+            return chunk;
+        }
+
+        private void write(JsonRowWriter writer) throws Exception {
+            long allocatedAtStart = JvmMetrics.threadAllocatedBytes();
+            try {
+                writeChunks(writer);
+            } finally {
+                stats.addAllocatedBytes(JvmMetrics.threadAllocatedBytes() - allocatedAtStart);
+            }
+        }
+
+        private void writeChunks(JsonRowWriter writer) throws Exception {
+            JsonBuffer document = new JsonBuffer();
+            while (true) {
+                long start = System.nanoTime();
+                Future<Chunk> future = queue.take();
+                if (future == END) {
+                    return;
+                }
+                Chunk chunk;
+                try {
+                    chunk = future.get();
+                } catch (ExecutionException e) {
+                    throw unwrap(e);
+                }
+                stats.addWriterWaited(System.nanoTime() - start);
+                if (aborted) {
+                    continue;
+                }
+                stats.addJsonBytes(chunk.json.size());
+
+                int offset = 0;
+                for (int i = 0; i < chunk.documents; i++) {
+                    document.reset();
+                    document.write(chunk.json.array(), offset, chunk.ends[i] - offset);
+                    offset = chunk.ends[i];
+                    if (stats.sampleRow()) {
+                        System.out.println("Generated JSON for record: " + document.toUtf8String());
+                    }
+
+                    if (chunk.keys[i] == null) {
+                        throw new SQLException("Primary key is null in the fetched data.");
+                    }
+                    writer.write(chunk.keys[i], document, chunk.hashes[i]);
+                }
+            }
+        }
+    }
+
+    private static Exception unwrap(ExecutionException e) {
+        return e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+    }
+
+    /**
+     * Up to CHUNK_ROWS rows and, once encoded, their JSON documents back to back in one buffer.
+     */
+    private static final class Chunk {
+        private Row[] rows = new Row[CHUNK_ROWS];
+        private int size;
+        private JsonBuffer json;
+        private final Object[] keys = new Object[CHUNK_ROWS];
+        private final int[] ends = new int[CHUNK_ROWS];
+        private final long[] hashes = new long[CHUNK_ROWS];
+        private int documents;
+
+        void addDocument(Object primaryKey, int end, long hash) {
+            keys[documents] = primaryKey;
+            ends[documents] = end;
+            hashes[documents] = hash;
+            documents++;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.dbtojson;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Column layout shared by all rows of one result set.
+ * Column names are lower-cased once here; rows hold values by column index only.
+ * Integral and floating-point columns are stored in a primitive slot of the row instead of a boxed value.
+ */
+public class RowSchema {
+
+    static final int KIND_OBJECT = 0;
+    static final int KIND_LONG = 1;
+    static final int KIND_DOUBLE = 2;
+
+    private final String[] columns;
+    private final int[] jdbcTypes;
+    private final String[] columnClassNames;
+    private final int[] kinds;
+    private final int[] primitiveSlots;
+    private final int primitiveCount;
+    private final Map<String, Integer> indexes = new HashMap<>();
+
+    private RowSchema(ResultSetMetaData metaData) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        this.columns = new String[columnCount];
+        this.jdbcTypes = new int[columnCount];
+        this.columnClassNames = new String[columnCount];
+        this.kinds = new int[columnCount];
+        this.primitiveSlots = new int[columnCount];
+
+        int slots = 0;
+        for (int i = 0; i < columnCount; i++) {
+            columns[i] = metaData.getColumnName(i + 1).toLowerCase();
+            jdbcTypes[i] = metaData.getColumnType(i + 1);
+            columnClassNames[i] = metaData.getColumnClassName(i + 1);
+            kinds[i] = kindOf(jdbcTypes[i]);
+            primitiveSlots[i] = kinds[i] != KIND_OBJECT ? slots++ : -1;
+            indexes.putIfAbsent(columns[i], i);
+        }
+        this.primitiveCount = slots;
+    }
+
+    /**
+     * Builds the schema of a result set.
+     * @param metaData The result set metadata.
+     * @return The schema.
+     */
+    public static RowSchema of(ResultSetMetaData metaData) throws SQLException {
+        return new RowSchema(metaData);
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    /**
+     * @return The lower-case column names, in result set order.
+     */
+    public String[] getColumns() {
+        return columns.clone();
+    }
+
+    public String getColumn(int index) {
+        return columns[index];
+    }
+
+    /**
+     * @return The java.sql.Types code of the column.
+     */
+    public int getJdbcType(int index) {
+        return jdbcTypes[index];
+    }
+
+    /**
+     * @return The class name the driver reports for values of the column.
+     */
+    public String getColumnClassName(int index) {
+        return columnClassNames[index];
+    }
+
+    /**
+     * @param column The column name, in any case.
+     * @return The column index, or -1 if the result set has no such column.
+     */
+    public int indexOf(String column) {
+        Integer index = indexes.get(column.toLowerCase());
+        return index != null ? index : -1;
+    }
+
+    /**
+     * @return Whether the column is integral and kept unboxed, so {@link Row#getLong(int)} reads it without boxing.
+     */
+    public boolean isIntegral(int index) {
+        return kinds[index] == KIND_LONG;
+    }
+
+    /**
+     * @return Whether the column is integral or floating-point and kept unboxed.
+     */
+    public boolean isNumeric(int index) {
+        return kinds[index] != KIND_OBJECT;
+    }
+
+    int kind(int index) {
+        return kinds[index];
+    }
+
+    int primitiveSlot(int index) {
+        return primitiveSlots[index];
+    }
+
+    int primitiveCount() {
+        return primitiveCount;
+    }
+
+    private static int kindOf(int jdbcType) {
+        switch (jdbcType) {
+            case Types.BIGINT:
+            case Types.INTEGER:
+            case Types.SMALLINT:
+            case Types.TINYINT:
+                return KIND_LONG;
+            case Types.DOUBLE:
+            case Types.FLOAT:
+            case Types.REAL:
+                return KIND_DOUBLE;
+            default:
+                return KIND_OBJECT;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.dbtojson;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the metrics of a run as a JSON report and, optionally, in the Prometheus text exposition format.
+ * The Prometheus file is meant for the node_exporter textfile collector, since the process exits after the run.
+ * Both files are written to a temporary file first and then moved into place.
+ */
+public class RunReport {
+
+    private final Instant startedAt;
+    private final long durationMillis;
+    private final List<ModuleResult> results;
+
+    public RunReport(Instant startedAt, long durationMillis, List<ModuleResult> results) {
+        this.startedAt = startedAt;
+        this.durationMillis = durationMillis;
+        this.results = results;
+    }
+
+    /**
+     * Writes the report as indented JSON.
+     */
+    public void writeJson(Path file) throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("startedAt", startedAt.toString());
+        report.put("durationMillis", durationMillis);
+        report.put("success", results.stream().allMatch(ModuleResult::isSuccess));
+
+        List<Map<String, Object>> modules = new ArrayList<>();
+        for (ModuleResult result : results) {
+            ModuleStats stats = result.getStats();
+            Map<String, Object> module = new LinkedHashMap<>();
+            module.put("name", result.getModuleName());
+            module.put("success", result.isSuccess());
+            if (result.getError() != null) {
+                module.put("error", String.valueOf(result.getError()));
+            }
+            module.put("durationMillis", result.getDurationMillis());
+            module.put("rowsRead", stats.getRowsRead());
+            module.put("rowsWritten", stats.getRowsWritten());
+            module.put("rowsSkipped", stats.getRowsSkipped());
+            module.put("rowsAffected", stats.getRowsAffected());
+            module.put("rowsRejected", stats.getRowsRejected());
+            module.put("rowsPerSecond", Math.round(result.getRowsPerSecond()));
+            module.put("jsonBytes", stats.getJsonBytes());
+            module.put("jdbcRoundTrips", stats.getRoundTrips());
+            module.put("allocatedBytes", stats.getAllocatedBytes());
+            module.put("gcCount", stats.getGcCount());
+            module.put("gcMillis", stats.getGcMillis());
+
+            Map<String, Object> latencies = new LinkedHashMap<>();
+            latencies.put("fetch", latencyMicros(stats.getFetchLatency()));
+            latencies.put("map", latencyMicros(stats.getMapLatency()));
+            latencies.put("serialize", latencyMicros(stats.getSerializeLatency()));
+            latencies.put("write", latencyMicros(stats.getWriteLatency()));
+            module.put("latencyMicros", latencies);
+            module.put("batchSize", summary(stats.getBatchSizes(), 1));
+
+            if (stats.getMaxQueueDepth() > 0) {
+                Map<String, Object> pipeline = new LinkedHashMap<>();
+                pipeline.put("readerBlockedMillis", stats.getReaderBlockedMillis());
+                pipeline.put("writerWaitedMillis", stats.getWriterWaitedMillis());
+                pipeline.put("maxQueueDepth", stats.getMaxQueueDepth());
+                module.put("pipeline", pipeline);
+            }
+            modules.add(module);
+        }
+        report.put("modules", modules);
+
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        writeAtomically(file, mapper.writeValueAsBytes(report));
+    }
+
+    /**
+     * Writes the report in the Prometheus text exposition format.
+     */
+    public void writePrometheus(Path file) throws IOException {
+        StringBuilder out = new StringBuilder();
+
+        header(out, "dbtojson_module_success", "gauge", "1 if the module completed, 0 if it failed.");
+        for (ModuleResult result : results) {
+            sample(out, "dbtojson_module_success", result, null, result.isSuccess() ? 1 : 0);
+        }
+        header(out, "dbtojson_module_duration_seconds", "gauge", "Run time of the module.");
+        for (ModuleResult result : results) {
+            sample(out, "dbtojson_module_duration_seconds", result, null, result.getDurationMillis() / 1000.0);
+        }
+        header(out, "dbtojson_rows_total", "counter", "Rows by outcome.");
+        for (ModuleResult result : results) {
+            ModuleStats stats = result.getStats();
+            sample(out, "dbtojson_rows_total", result, "outcome=\"read\"", stats.getRowsRead());
+            sample(out, "dbtojson_rows_total", result, "outcome=\"written\"", stats.getRowsWritten());
+            sample(out, "dbtojson_rows_total", result, "outcome=\"skipped\"", stats.getRowsSkipped());
+            sample(out, "dbtojson_rows_total", result, "outcome=\"affected\"", stats.getRowsAffected());
+            sample(out, "dbtojson_rows_total", result, "outcome=\"rejected\"", stats.getRowsRejected());
+        }
+        header(out, "dbtojson_json_bytes_total", "counter", "Bytes of JSON generated.");
+        for (ModuleResult result : results) {
+            sample(out, "dbtojson_json_bytes_total", result, null, result.getStats().getJsonBytes());
+        }
+        header(out, "dbtojson_jdbc_round_trips_total", "counter", "JDBC round trips to the database.");
+        for (ModuleResult result : results) {
+            sample(out, "dbtojson_jdbc_round_trips_total", result, null, result.getStats().getRoundTrips());
+        }
+        header(out, "dbtojson_allocated_bytes_total", "counter", "Bytes allocated by the module's threads.");
+        for (ModuleResult result : results) {
+            sample(out, "dbtojson_allocated_bytes_total", result, null, result.getStats().getAllocatedBytes());
+        }
+        header(out, "dbtojson_gc_seconds", "gauge", "JVM-wide garbage collection time while the module ran.");
+        for (ModuleResult result : results) {
+            sample(out, "dbtojson_gc_seconds", result, null, result.getStats().getGcMillis() / 1000.0);
+        }
+
+        header(out, "dbtojson_stage_latency_seconds", "summary", "Latency per row (fetch, map, serialize) or per batch (write).");
+        for (ModuleResult result : results) {
+            ModuleStats stats = result.getStats();
+            stageSummary(out, result, "fetch", stats.getFetchLatency());
+            stageSummary(out, result, "map", stats.getMapLatency());
+            stageSummary(out, result, "serialize", stats.getSerializeLatency());
+            stageSummary(out, result, "write", stats.getWriteLatency());
+        }
+        header(out, "dbtojson_batch_rows", "summary", "Rows per executed write batch.");
+        for (ModuleResult result : results) {
+            Histogram batches = result.getStats().getBatchSizes();
+            for (double quantile : new double[] {0.5, 0.99}) {
+                sample(out, "dbtojson_batch_rows", result, "quantile=\"" + quantile + "\"", batches.getPercentile(quantile));
+            }
+            sample(out, "dbtojson_batch_rows_sum", result, null, batches.getSum());
+            sample(out, "dbtojson_batch_rows_count", result, null, batches.getCount());
+        }
+
+        writeAtomically(file, out.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Map<String, Object> latencyMicros(Histogram histogram) {
+        return summary(histogram, 1000);
+    }
+
+    private static Map<String, Object> summary(Histogram histogram, long divisor) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", histogram.getCount());
+        summary.put("mean", Math.round(histogram.getMean() / divisor));
+        summary.put("p50", histogram.getPercentile(0.5) / divisor);
+        summary.put("p95", histogram.getPercentile(0.95) / divisor);
+        summary.put("p99", histogram.getPercentile(0.99) / divisor);
+        summary.put("max", histogram.getMax() / divisor);
+        return summary;
+    }
+
+    private static void stageSummary(StringBuilder out, ModuleResult result, String stage, Histogram histogram) {
+        String stageLabel = "stage=\"" + stage + "\"";
+        for (double quantile : new double[] {0.5, 0.95, 0.99}) {
+            sample(out, "dbtojson_stage_latency_seconds", result, stageLabel + ",quantile=\"" + quantile + "\"",
+                    histogram.getPercentile(quantile) / 1e9);
+        }
+        sample(out, "dbtojson_stage_latency_seconds_sum", result, stageLabel, histogram.getSum() / 1e9);
+        sample(out, "dbtojson_stage_latency_seconds_count", result, stageLabel, histogram.getCount());
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, ModuleResult result, String labels, double value) {
+        out.append(name).append("{module=\"").append(escapeLabel(result.getModuleName())).append('"');
+        if (labels != null) {
+            out.append(',').append(labels);
+        }
+        out.append("} ");
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            out.append((long) value);
+        } else {
+            out.append(Double.toString(value));
+        }
+        out.append('\n');
+    }
+
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static void writeAtomically(Path file, byte[] content) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        Path temp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        Files.write(temp, content);
+        Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,77 @@
+package com.dbtojson.benchmarks;
+
+import com.dbtojson.ConverterRegistry;
+import com.dbtojson.JsonBuffer;
+import com.dbtojson.Row;
+import com.dbtojson.model.Employee;
+import com.dbtojson.model.EmployeeRowMapper;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Row-to-JSON cost per row for Employee, whose generated mapper (phone list, nested address,
+ * status check) rules out the generic and direct strategies. Compares serializing to a String,
+ * as the processor originally did, with serializing into a reused buffer.
+ * Run with {@code -prof gc} to compare allocation per row.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class EmployeeMappingBenchmark {
+
+    private static final int ROWS = 1024;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private List<Row> rows;
+    private Function<Row, Employee> mapper;
+    private JsonBuffer buffer;
+    private JsonGenerator generator;
+
+    @Setup
+    public void setUp() throws Exception {
+        SyntheticRows data = SyntheticRows.generate("employee", ROWS, 42);
+        rows = data.getRows();
+        mapper = new EmployeeRowMapper(data.getSchema(), ConverterRegistry.defaults());
+        buffer = new JsonBuffer();
+        generator = objectMapper.getFactory().createGenerator(buffer);
+        generator.setRootValueSeparator(null);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void customToString(Blackhole blackhole) throws IOException {
+        for (Row row : rows) {
+            blackhole.consume(objectMapper.writeValueAsString(mapper.apply(row)));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void customToBuffer(Blackhole blackhole) throws IOException {
+        for (Row row : rows) {
+            buffer.reset();
+            objectMapper.writeValue(generator, mapper.apply(row));
+            generator.flush();
+            blackhole.consume(buffer.size());
+        }
+    }
+}
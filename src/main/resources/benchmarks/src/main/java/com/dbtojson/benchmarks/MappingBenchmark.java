@@ -0,0 +1,115 @@
+package com.dbtojson.benchmarks;
+
+import com.dbtojson.CompiledRowMapper;
+import com.dbtojson.DirectJsonPlan;
+import com.dbtojson.JsonBuffer;
+import com.dbtojson.Row;
+import com.dbtojson.model.Person;
+import com.dbtojson.model.Product;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Row-to-JSON cost per row for the flat DTOs, comparing the mapping strategies:
+ * <ul>
+ *     <li>reflective: the original HashMap, reflection and writeValueAsString path</li>
+ *     <li>compiled: the cached CompiledRowMapper, serialized into a reused buffer</li>
+ *     <li>direct: DirectJsonPlan, writing rows to the generator without a DTO</li>
+ * </ul>
+ * Run with {@code -prof gc} to compare allocation per row.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MappingBenchmark {
+
+    private static final int ROWS = 1024;
+
+    @Param({"person", "product"})
+    private String shape;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private List<Row> rows;
+    private Class<?> dtoClass;
+    private CompiledRowMapper<?> compiledMapper;
+    private DirectJsonPlan directPlan;
+    private JsonBuffer buffer;
+    private JsonGenerator generator;
+
+    @Setup
+    public void setUp() throws Exception {
+        SyntheticRows data = SyntheticRows.generate(shape, ROWS, 42);
+        rows = data.getRows();
+        dtoClass = "person".equals(shape) ? Person.class : Product.class;
+        compiledMapper = CompiledRowMapper.forSchema(dtoClass, data.getSchema());
+
+        List<String> problems = new ArrayList<>();
+        directPlan = DirectJsonPlan.compile(dtoClass, data.getSchema(), problems);
+        if (directPlan == null) {
+            throw new IllegalStateException("No direct plan for " + shape + ": " + problems);
+        }
+
+        buffer = new JsonBuffer();
+        generator = objectMapper.getFactory().createGenerator(buffer);
+        generator.setRootValueSeparator(null);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void reflective(Blackhole blackhole) throws Exception {
+        for (Row row : rows) {
+            Object dto = ReflectiveBaseline.mapToDto(ReflectiveBaseline.toMap(row), dtoClass);
+            blackhole.consume(objectMapper.writeValueAsString(dto));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void compiled(Blackhole blackhole) throws IOException {
+        for (Row row : rows) {
+            buffer.reset();
+            objectMapper.writeValue(generator, compiledMapper.map(row));
+            generator.flush();
+            blackhole.consume(buffer.size());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void compiledMapOnly(Blackhole blackhole) {
+        for (Row row : rows) {
+            blackhole.consume(compiledMapper.map(row));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void direct(Blackhole blackhole) throws IOException {
+        for (Row row : rows) {
+            buffer.reset();
+            directPlan.write(row, generator);
+            generator.flush();
+            blackhole.consume(buffer.size());
+        }
+    }
+}
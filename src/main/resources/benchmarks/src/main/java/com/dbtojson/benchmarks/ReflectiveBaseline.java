@@ -0,0 +1,92 @@
+package com.dbtojson.benchmarks;
+
+import com.dbtojson.Row;
+import com.dbtojson.RowSchema;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The mapping path before compiled plans, kept as the baseline: every row becomes a HashMap,
+ * and every column resolves its setter by reflection and converts its value on each row.
+ * The per-row warnings of the original are left out so console output does not dominate the measurement.
+ */
+final class ReflectiveBaseline {
+
+    private ReflectiveBaseline() {
+    }
+
+    static Map<String, Object> toMap(Row row) {
+        RowSchema schema = row.getSchema();
+        Map<String, Object> map = new HashMap<>();
+        for (int i = 0; i < schema.getColumnCount(); i++) {
+            map.put(schema.getColumn(i), row.get(i));
+        }
+        return map;
+    }
+
+    static <T> T mapToDto(Map<String, Object> row, Class<T> dtoClass) throws Exception {
+        T dto = dtoClass.getConstructor().newInstance();
+        for (Map.Entry<String, Object> entry : row.entrySet()) {
+            Method setter = findSetter(dtoClass, "set" + capitalize(toCamelCase(entry.getKey())));
+            if (setter != null) {
+                Object castValue = castToType(entry.getValue(), setter.getParameterTypes()[0]);
+                if (castValue != null) {
+                    setter.invoke(dto, castValue);
+                }
+            }
+        }
+        return dto;
+    }
+
+    private static String toCamelCase(String snakeCase) {
+        StringBuilder camelCaseBuilder = new StringBuilder();
+        String[] parts = snakeCase.split("_");
+        for (int i = 0; i < parts.length; i++) {
+            camelCaseBuilder.append(i == 0 ? parts[i] : capitalize(parts[i]));
+        }
+        return camelCaseBuilder.toString();
+    }
+
+    private static String capitalize(String str) {
+        if (str == null || str.isEmpty()) {
+            return str;
+        }
+        return str.substring(0, 1).toUpperCase() + str.substring(1);
+    }
+
+    private static Method findSetter(Class<?> clazz, String setterMethodName) {
+        for (Method method : clazz.getMethods()) {
+            if (method.getName().equals(setterMethodName) && method.getParameterCount() == 1) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private static Object castToType(Object value, Class<?> targetType) {
+        if (value == null) {
+            return null;
+        }
+        if (targetType.isInstance(value)) {
+            return value;
+        }
+        if (targetType.equals(String.class)) {
+            return value.toString();
+        } else if (targetType.equals(Integer.class) && value instanceof Number) {
+            return ((Number) value).intValue();
+        } else if (targetType.equals(Long.class) && value instanceof Number) {
+            return ((Number) value).longValue();
+        } else if (targetType.equals(Double.class) && value instanceof Number) {
+            return ((Number) value).doubleValue();
+        } else if (targetType.equals(Float.class) && value instanceof Number) {
+            return ((Number) value).floatValue();
+        } else if (targetType.equals(BigDecimal.class) && value instanceof Number) {
+            return new BigDecimal(value.toString());
+        } else if (targetType.equals(BigDecimal.class) && value instanceof String) {
+            return new BigDecimal((String) value);
+        }
+        return null;
+    }
+}
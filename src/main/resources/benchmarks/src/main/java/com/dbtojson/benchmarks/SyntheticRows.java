@@ -0,0 +1,208 @@
+package com.dbtojson.benchmarks;
+
+import com.dbtojson.Row;
+import com.dbtojson.RowSchema;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates rows shaped like the result sets of the person, product and employee modules, read
+ * through Row.read so they hold the same values the JDBC driver would produce.
+ * Generation happens once per trial, outside the measured code.
+ */
+public final class SyntheticRows {
+
+    private final RowSchema schema;
+    private final List<Row> rows;
+
+    private SyntheticRows(RowSchema schema, List<Row> rows) {
+        this.schema = schema;
+        this.rows = rows;
+    }
+
+    public RowSchema getSchema() {
+        return schema;
+    }
+
+    public List<Row> getRows() {
+        return rows;
+    }
+
+    /**
+     * @param shape person, product or employee.
+     * @param count The number of rows.
+     * @param seed The random seed, so runs compare the same data.
+     */
+    public static SyntheticRows generate(String shape, int count, long seed) throws SQLException {
+        switch (shape) {
+            case "person":
+                return person(count, new Random(seed));
+            case "product":
+                return product(count, new Random(seed));
+            case "employee":
+                return employee(count, new Random(seed));
+            default:
+                throw new IllegalArgumentException("Unknown row shape: " + shape);
+        }
+    }
+
+    private static SyntheticRows person(int count, Random random) throws SQLException {
+        Column[] columns = {
+                new Column("USER_ID", Types.BIGINT, Long.class),
+                new Column("FULL_NAME", Types.VARCHAR, String.class),
+                new Column("DATE_OF_BIRTH", Types.DATE, Date.class),
+                new Column("STREET", Types.VARCHAR, String.class),
+                new Column("CITY", Types.VARCHAR, String.class),
+                new Column("POSTAL_CODE", Types.VARCHAR, String.class),
+        };
+        List<Object[]> values = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            values.add(new Object[] {
+                    (long) i + 1,
+                    text(random, 6, 24),
+                    Date.valueOf(java.time.LocalDate.of(1950 + random.nextInt(55), 1 + random.nextInt(12), 1 + random.nextInt(28))),
+                    random.nextInt(999) + " " + text(random, 5, 20),
+                    text(random, 4, 16),
+                    String.format("%05d", random.nextInt(100000)),
+            });
+        }
+        return read(columns, values);
+    }
+
+    private static SyntheticRows product(int count, Random random) throws SQLException {
+        Column[] columns = {
+                new Column("ID", Types.BIGINT, Long.class),
+                new Column("NAME", Types.VARCHAR, String.class),
+                new Column("PRICE", Types.NUMERIC, BigDecimal.class),
+                new Column("CATEGORY", Types.VARCHAR, String.class),
+        };
+        List<Object[]> values = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            values.add(new Object[] {
+                    (long) i + 100,
+                    text(random, 4, 32),
+                    BigDecimal.valueOf(random.nextInt(1_000_000), 2),
+                    text(random, 5, 12),
+            });
+        }
+        return read(columns, values);
+    }
+
+    private static SyntheticRows employee(int count, Random random) throws SQLException {
+        Column[] columns = {
+                new Column("employee_id", Types.BIGINT, Long.class),
+                new Column("employee_name", Types.VARCHAR, String.class),
+                new Column("employee_age", Types.INTEGER, Integer.class),
+                new Column("employee_phone", Types.VARCHAR, String.class),
+                new Column("street", Types.VARCHAR, String.class),
+                new Column("city", Types.VARCHAR, String.class),
+                new Column("zip_code", Types.VARCHAR, String.class),
+                // Text instead of the table's integer so both branches of Employee's status check run
+                new Column("active_status", Types.VARCHAR, String.class),
+        };
+        List<Object[]> values = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            values.add(new Object[] {
+                    (long) i + 1,
+                    text(random, 6, 24),
+                    20 + random.nextInt(45),
+                    random.nextBoolean() ? phone(random) + "," + phone(random) : phone(random),
+                    random.nextInt(999) + " " + text(random, 5, 20),
+                    text(random, 4, 16),
+                    String.format("%05d", random.nextInt(100000)),
+                    random.nextInt(4) == 0 ? "inactive" : "active",
+            });
+        }
+        return read(columns, values);
+    }
+
+    /**
+     * Reads the values through an in-memory result set, the same way the processor reads JDBC rows.
+     */
+    private static SyntheticRows read(Column[] columns, List<Object[]> values) throws SQLException {
+        ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(
+                SyntheticRows.class.getClassLoader(), new Class<?>[] {ResultSetMetaData.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getColumnCount":
+                            return columns.length;
+                        case "getColumnName":
+                        case "getColumnLabel":
+                            return columns[(int) args[0] - 1].name;
+                        case "getColumnType":
+                            return columns[(int) args[0] - 1].jdbcType;
+                        case "getColumnClassName":
+                            return columns[(int) args[0] - 1].javaType.getName();
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        RowSchema schema = RowSchema.of(metaData);
+
+        Object[][] current = new Object[1][];
+        boolean[] wasNull = new boolean[1];
+        ResultSet resultSet = (ResultSet) Proxy.newProxyInstance(
+                SyntheticRows.class.getClassLoader(), new Class<?>[] {ResultSet.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getObject": {
+                            Object value = current[0][(int) args[0] - 1];
+                            wasNull[0] = value == null;
+                            return value;
+                        }
+                        case "getLong": {
+                            Object value = current[0][(int) args[0] - 1];
+                            wasNull[0] = value == null;
+                            return value == null ? 0L : ((Number) value).longValue();
+                        }
+                        case "getDouble": {
+                            Object value = current[0][(int) args[0] - 1];
+                            wasNull[0] = value == null;
+                            return value == null ? 0d : ((Number) value).doubleValue();
+                        }
+                        case "wasNull":
+                            return wasNull[0];
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+
+        List<Row> rows = new ArrayList<>(values.size());
+        for (Object[] row : values) {
+            current[0] = row;
+            rows.add(Row.read(resultSet, schema));
+        }
+        return new SyntheticRows(schema, rows);
+    }
+
+    private static String text(Random random, int minLength, int maxLength) {
+        int length = minLength + random.nextInt(maxLength - minLength + 1);
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(i > 0 && random.nextInt(7) == 0 ? ' ' : (char) ('a' + random.nextInt(26)));
+        }
+        return text.toString();
+    }
+
+    private static String phone(Random random) {
+        return String.format("+1-%03d-%03d-%04d", random.nextInt(1000), random.nextInt(1000), random.nextInt(10000));
+    }
+
+    private static final class Column {
+        private final String name;
+        private final int jdbcType;
+        private final Class<?> javaType;
+
+        Column(String name, int jdbcType, Class<?> javaType) {
+            this.name = name;
+            this.jdbcType = jdbcType;
+            this.javaType = javaType;
+        }
+    }
+}
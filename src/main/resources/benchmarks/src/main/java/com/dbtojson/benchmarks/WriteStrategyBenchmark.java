@@ -0,0 +1,112 @@
+package com.dbtojson.benchmarks;
+
+import com.dbtojson.GenericDataProcessor;
+import com.dbtojson.ModuleConfig;
+import com.dbtojson.ModuleResult;
+import com.dbtojson.ModuleStats;
+import com.dbtojson.model.Person;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-to-end module run against a local PostgreSQL, comparing write strategies and mapping modes.
+ * Each invocation processes the whole benchmark table once, like a scheduled run.
+ * COPY and jsonb need PostgreSQL, so an embedded database cannot stand in; the connection is
+ * taken from the bench.url, bench.user and bench.password system properties. The benchmark
+ * creates and drops its own schema, dbtojson_bench.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WriteStrategyBenchmark {
+
+    private static final String SCHEMA = "dbtojson_bench";
+
+    @Param({"batch", "copy"})
+    private String writeStrategy;
+
+    @Param({"dto", "direct"})
+    private String mapping;
+
+    @Param({"100000"})
+    private int rows;
+
+    @Param({"1"})
+    private int partitions;
+
+    private HikariDataSource dataSource;
+    private ModuleConfig moduleConfig;
+
+    @Setup
+    public void setUp() throws SQLException {
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setPoolName("dbtojson-bench");
+        hikariConfig.setJdbcUrl(System.getProperty("bench.url", "jdbc:postgresql://localhost:5432/postgres"));
+        hikariConfig.setUsername(System.getProperty("bench.user", "postgres"));
+        hikariConfig.setPassword(System.getProperty("bench.password", "postgres"));
+        hikariConfig.setMaximumPoolSize(2 * partitions + 1);
+        hikariConfig.addDataSourceProperty("reWriteBatchedInserts", "true");
+        dataSource = new HikariDataSource(hikariConfig);
+
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+            stmt.execute("CREATE SCHEMA " + SCHEMA);
+            stmt.execute("CREATE TABLE " + SCHEMA + ".persons (user_id BIGINT PRIMARY KEY, full_name VARCHAR(255) NOT NULL,"
+                    + " date_of_birth DATE, street VARCHAR(255), city VARCHAR(255), postal_code VARCHAR(20), data JSONB)");
+            stmt.execute("INSERT INTO " + SCHEMA + ".persons (user_id, full_name, date_of_birth, street, city, postal_code)"
+                    + " SELECT g, 'Person ' || g, DATE '1950-01-01' + (g % 20000), g || ' Main St', 'City ' || (g % 500),"
+                    + " lpad((g % 100000)::text, 5, '0') FROM generate_series(1, " + rows + ") g");
+            stmt.execute("ANALYZE " + SCHEMA + ".persons");
+        }
+
+        Properties config = new Properties();
+        config.setProperty("person.fetchSql", "SELECT user_id, full_name, date_of_birth, street, city, postal_code FROM "
+                + SCHEMA + ".persons");
+        config.setProperty("person.updateSql", "UPDATE " + SCHEMA + ".persons SET data = ?::jsonb WHERE user_id = ?");
+        config.setProperty("person.dtoClass", Person.class.getName());
+        config.setProperty("person.primaryKey", "user_id");
+        config.setProperty("person.targetTable", SCHEMA + ".persons");
+        config.setProperty("person.jsonColumn", "data");
+        config.setProperty("person.fetchSize", "5000");
+        config.setProperty("person.partitions", String.valueOf(partitions));
+        config.setProperty("writeStrategy", writeStrategy);
+        config.setProperty("mapping", mapping);
+        moduleConfig = ModuleConfig.from(config, "person");
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        } finally {
+            dataSource.close();
+        }
+    }
+
+    @Benchmark
+    public ModuleResult processModule() throws Exception {
+        return new GenericDataProcessor<Person>().processData(dataSource, moduleConfig, Person.class, new ModuleStats(0));
+    }
+}
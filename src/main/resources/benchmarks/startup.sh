@@ -0,0 +1,64 @@
+#!/usr/bin/env bash
+# Startup time of the dbtojson processor: the shaded jar on a plain JVM, with the AppCDS archive,
+# with a JDK 25+ AOT cache if the JVM supports one, and the native executable. Every variant runs
+# --warmup, which loads the configured modules without connecting to the database.
+#
+# Build first, from src/main/resources:
+#   mvn -Pappcds package              target/dbtojson-0.0.1-SNAPSHOT.jar and target/dbtojson.jsa
+#   mvn -Pnative package              target/dbtojson (GraalVM)
+# Then run this script from the same directory, so config.properties is found. Uses hyperfine if installed.
+set -euo pipefail
+
+RUNS=${RUNS:-20}
+JAVA=${JAVA:-java}
+TARGET=${TARGET:-target}
+JAR="$TARGET/dbtojson-0.0.1-SNAPSHOT.jar"
+
+if [ ! -f "$JAR" ]; then
+    echo "Missing $JAR, build it with mvn package first." >&2
+    exit 1
+fi
+
+names=("jvm")
+commands=("$JAVA -Xshare:auto -jar $JAR --warmup")
+
+if [ -f "$TARGET/dbtojson.jsa" ]; then
+    names+=("appcds")
+    commands+=("$JAVA -XX:SharedArchiveFile=$TARGET/dbtojson.jsa -jar $JAR --warmup")
+fi
+
+if $JAVA -XX:AOTMode=off -version >/dev/null 2>&1; then
+    if [ ! -f "$TARGET/dbtojson.aot" ]; then
+        $JAVA -XX:AOTCacheOutput="$TARGET/dbtojson.aot" -jar "$JAR" --warmup >/dev/null
+    fi
+    names+=("aot-cache")
+    commands+=("$JAVA -XX:AOTCache=$TARGET/dbtojson.aot -jar $JAR --warmup")
+fi
+
+if [ -x "$TARGET/dbtojson" ]; then
+    names+=("native")
+    commands+=("$TARGET/dbtojson --warmup")
+fi
+
+if command -v hyperfine >/dev/null 2>&1; then
+    args=()
+    for i in "${!names[@]}"; do
+        args+=(--command-name "${names[$i]}" "${commands[$i]}")
+    done
+    hyperfine --warmup 2 --runs "$RUNS" --export-markdown "$TARGET/startup.md" "${args[@]}"
+    exit 0
+fi
+
+printf '%-10s %10s %10s %10s\n' variant "min ms" "mean ms" "max ms"
+for i in "${!names[@]}"; do
+    min=0 max=0 total=0
+    for ((run = 0; run < RUNS; run++)); do
+        start=$(date +%s%N)
+        ${commands[$i]} >/dev/null
+        elapsed=$(( ($(date +%s%N) - start) / 1000000 ))
+        total=$((total + elapsed))
+        if ((run == 0 || elapsed < min)); then min=$elapsed; fi
+        if ((elapsed > max)); then max=$elapsed; fi
+    done
+    printf '%-10s %10d %10d %10d\n' "${names[$i]}" "$min" $((total / RUNS)) "$max"
+done
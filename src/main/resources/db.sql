@@ -136,3 +136,69 @@ REVOKE ALL ON TABLE airdocs.employees FROM app_admin_meta;
 GRANT UPDATE, SELECT ON TABLE airdocs.employees TO app_admin_meta;
 
 GRANT ALL ON TABLE airdocs.employees TO postgres;
+
+
+-- Hash of the last written JSON, used to skip rows whose JSON is unchanged
+ALTER TABLE airdocs.PERSONS ADD COLUMN DATA_HASH BIGINT;
+ALTER TABLE airdocs.PRODUCTS ADD COLUMN DATA_HASH BIGINT;
+ALTER TABLE airdocs.employees ADD COLUMN data_hash BIGINT;
+
+
+-- Progress of keyset-paginated module runs: one row per unfinished key range, deleted once the range is done
+CREATE TABLE airdocs.dbtojson_checkpoint (
+    module VARCHAR(100) NOT NULL,
+    range_upper BIGINT NOT NULL,
+    next_key BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (module, range_upper)
+);
+
+GRANT SELECT, INSERT, UPDATE, DELETE ON TABLE airdocs.dbtojson_checkpoint TO app_admin_meta;
+
+
+-- Change capture for continuous mode (java com.dbtojson.DataProcessor --continuous): the triggers queue the primary
+-- key of every inserted or updated source row, and the module workers regenerate the JSON of queued keys.
+-- The triggers only watch the source columns, so the processor's own writes to the JSON and hash columns do not
+-- queue the row again.
+CREATE TABLE airdocs.dbtojson_change_queue (
+    id BIGSERIAL PRIMARY KEY,
+    module VARCHAR(100) NOT NULL,
+    pk BIGINT NOT NULL,
+    queued_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX dbtojson_change_queue_module_idx ON airdocs.dbtojson_change_queue (module, id);
+
+-- UPDATE is needed by the claim's SELECT ... FOR UPDATE, which locks the queued rows before deleting them.
+GRANT SELECT, UPDATE, DELETE ON TABLE airdocs.dbtojson_change_queue TO app_admin_meta;
+
+-- Queues the changed row's key and wakes the workers; TG_ARGV[0] is the module, TG_ARGV[1] the lower-case key column.
+-- Runs as its owner, so applications changing the source tables need no rights on the queue.
+CREATE OR REPLACE FUNCTION airdocs.dbtojson_enqueue_change() RETURNS trigger
+LANGUAGE plpgsql SECURITY DEFINER SET search_path = airdocs, pg_temp AS $$
+BEGIN
+    INSERT INTO airdocs.dbtojson_change_queue (module, pk) VALUES (TG_ARGV[0], (to_jsonb(NEW) ->> TG_ARGV[1])::bigint);
+    PERFORM pg_notify('dbtojson_changes', TG_ARGV[0]);
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER persons_dbtojson_change
+    AFTER INSERT OR UPDATE OF FULL_NAME, DATE_OF_BIRTH, STREET, CITY, POSTAL_CODE ON airdocs.PERSONS
+    FOR EACH ROW EXECUTE FUNCTION airdocs.dbtojson_enqueue_change('person', 'user_id');
+
+CREATE TRIGGER products_dbtojson_change
+    AFTER INSERT OR UPDATE OF NAME, PRICE, CATEGORY ON airdocs.PRODUCTS
+    FOR EACH ROW EXECUTE FUNCTION airdocs.dbtojson_enqueue_change('product', 'id');
+
+CREATE TRIGGER employees_dbtojson_change
+    AFTER INSERT OR UPDATE OF employee_name, employee_age, employee_phone, street, city, zip_code, active_status
+    ON airdocs.employees
+    FOR EACH ROW EXECUTE FUNCTION airdocs.dbtojson_enqueue_change('employee', 'employee_id');
+
+-- Trying it on a local PostgreSQL:
+--   docker run -d --name dbtojson-pg -e POSTGRES_PASSWORD=postgres -p 5432:5432 postgres:16
+--   create the in01 database, the airdocs schema and the app_admin_meta role, then run this script
+--   start java com.dbtojson.DataProcessor --continuous
+--   UPDATE airdocs.PERSONS SET CITY = 'Elsewhere' WHERE USER_ID = 1;
+-- The person worker logs the refresh within a moment and PERSONS.DATA shows the new city.
@@ -0,0 +1,26 @@
+package com.dbtojson.mapping;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Binds a field to a column other than the snake-case form of its name, or excludes it from mapping.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.FIELD)
+public @interface Column {
+
+    /**
+     * @return The column name, in any case.
+     */
+    String value() default "";
+
+    /**
+     * @return true to leave the field unmapped.
+     */
+    boolean ignore() default false;
+}
@@ -0,0 +1,28 @@
+package com.dbtojson.mapping;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Maps a field only when a column of the row has the given value, compared as text ignoring case.
+ * Rows where the column is NULL or absent leave the field unset. The condition is evaluated once per row
+ * however many fields share it.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.FIELD)
+public @interface IncludeIf {
+
+    /**
+     * @return The column the condition reads.
+     */
+    String column();
+
+    /**
+     * @return The value the column must have.
+     */
+    String equalsIgnoreCase();
+}
@@ -0,0 +1,17 @@
+package com.dbtojson.mapping;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Maps a field to a new instance of its type, populated from the same row by the rules of {@link RowMapped}.
+ * The nested object is created for every row, even if all of its columns are NULL.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.FIELD)
+public @interface Nested {
+}
@@ -0,0 +1,29 @@
+package com.dbtojson.mapping;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates a row mapper for the DTO at compile time.
+ * <p>
+ * For a top-level class {@code Employee} the processor writes {@code EmployeeRowMapper} into the same
+ * package: a {@code Function<Row, Employee>} with a constructor taking the {@code RowSchema} and the run's
+ * {@code ConverterRegistry}. Column indexes and value converters are resolved in the constructor; mapping a row
+ * is plain Java calling the DTO's setters, so module converters apply as they do to reflective mapping.
+ * <p>
+ * Every non-static, non-transient field declared in the class is bound to the column named after it in
+ * snake case (employeeName to employee_name), unless {@link Column} names another column. Columns missing
+ * from the result set and SQL NULLs leave the field unset. The DTO needs a public no-arg constructor and a
+ * non-private setter per field.
+ * <p>
+ * The annotation is retained at run time: a {@code @RowMapped} DTO without its generated mapper, built without
+ * the processor, fails the run instead of being mapped reflectively without its mapping annotations.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface RowMapped {
+}
@@ -0,0 +1,475 @@
+package com.dbtojson.mapping;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Writes a reflection-free row mapper for every class annotated with {@link RowMapped}.
+ * Mapping problems such as a missing setter are reported as compile errors on the offending field.
+ */
+@SupportedAnnotationTypes("com.dbtojson.mapping.RowMapped")
+public class RowMapperProcessor extends AbstractProcessor {
+
+    private static final String ROW = "com.dbtojson.Row";
+    private static final String ROW_SCHEMA = "com.dbtojson.RowSchema";
+    private static final String CONVERTER_REGISTRY = "com.dbtojson.ConverterRegistry";
+    private static final String CONVERTER = "java.util.function.Function<Object, Object>";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(RowMapped.class)) {
+            if (element.getKind() != ElementKind.CLASS || ((TypeElement) element).getNestingKind() != NestingKind.TOP_LEVEL) {
+                error(element, "@RowMapped is only supported on top-level classes.");
+                continue;
+            }
+            try {
+                generate((TypeElement) element);
+            } catch (MappingException e) {
+                error(e.element, e.getMessage());
+            } catch (IOException e) {
+                error(element, "Cannot write the row mapper: " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    private void generate(TypeElement dto) throws IOException {
+        requireNoArgConstructor(dto, dto);
+        Plan plan = new Plan();
+        StringBuilder body = new StringBuilder();
+        String dtoName = dto.getQualifiedName().toString();
+        body.append("        ").append(dtoName).append(" dto = new ").append(dtoName).append("();\n");
+        plan.locals.add("dto");
+        writeFields(plan, dto, "dto", "        ", body);
+
+        String packageName = processingEnv.getElementUtils().getPackageOf(dto).getQualifiedName().toString();
+        String mapperName = dto.getSimpleName() + "RowMapper";
+        String qualifiedMapperName = packageName.isEmpty() ? mapperName : packageName + "." + mapperName;
+
+        StringBuilder out = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            out.append("package ").append(packageName).append(";\n\n");
+        }
+        out.append("/**\n");
+        out.append(" * Maps rows to {@link ").append(dtoName).append("}; generated from its mapping annotations.\n");
+        out.append(" */\n");
+        out.append("@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n");
+        out.append("public final class ").append(mapperName)
+                .append(" implements java.util.function.Function<").append(ROW).append(", ").append(dtoName).append("> {\n\n");
+        for (String constant : plan.constants) {
+            out.append("    private static final ").append(constant).append(";\n");
+        }
+        if (!plan.constants.isEmpty()) {
+            out.append('\n');
+        }
+        for (String indexField : plan.indexes.values()) {
+            out.append("    private final int ").append(indexField).append(";\n");
+        }
+        for (String[] converter : plan.converters) {
+            out.append("    private final ").append(CONVERTER).append(' ').append(converter[0]).append(";\n");
+        }
+        for (String[] unboxed : plan.unboxed) {
+            out.append("    private final boolean ").append(unboxed[0]).append(";\n");
+        }
+        out.append('\n');
+        out.append("    public ").append(mapperName).append("(").append(ROW_SCHEMA).append(" schema, ")
+                .append(CONVERTER_REGISTRY).append(" converters) {\n");
+        for (Map.Entry<String, String> index : plan.indexes.entrySet()) {
+            out.append("        this.").append(index.getValue()).append(" = schema.indexOf(")
+                    .append(literal(index.getKey())).append(");\n");
+        }
+        for (String[] converter : plan.converters) {
+            out.append("        this.").append(converter[0]).append(" = converter(schema, converters, ")
+                    .append(converter[1]).append(", ").append(converter[2]).append(".class);\n");
+        }
+        for (String[] unboxed : plan.unboxed) {
+            out.append("        this.").append(unboxed[0]).append(" = ").append(unboxed[1]).append(" >= 0 && schema.")
+                    .append(unboxed[2]).append('(').append(unboxed[1]).append(");\n");
+        }
+        out.append("    }\n\n");
+        out.append("    @Override\n");
+        out.append("    public ").append(dtoName).append(" apply(").append(ROW).append(" row) {\n");
+        for (Map.Entry<String, String> condition : plan.conditions.entrySet()) {
+            out.append("        boolean ").append(condition.getValue()).append(" = ").append(condition.getKey()).append(";\n");
+        }
+        out.append(body);
+        out.append("        return dto;\n");
+        out.append("    }\n\n");
+        out.append("    private static boolean present(").append(ROW).append(" row, int index) {\n");
+        out.append("        return index >= 0 && !row.isNull(index);\n");
+        out.append("    }\n\n");
+        out.append("    private static boolean matches(").append(ROW).append(" row, int index, String value) {\n");
+        out.append("        return present(row, index) && row.get(index).toString().equalsIgnoreCase(value);\n");
+        out.append("    }\n\n");
+        out.append("    private static ").append(CONVERTER).append(" converter(").append(ROW_SCHEMA).append(" schema, ")
+                .append(CONVERTER_REGISTRY).append(" converters, int index, Class<?> type) {\n");
+        out.append("        if (index < 0) {\n");
+        out.append("            return null;\n");
+        out.append("        }\n");
+        out.append("        ").append(CONVERTER).append(" converter = converters.resolve(schema, index, type);\n");
+        out.append("        if (converter == null) {\n");
+        out.append("            throw new IllegalArgumentException(\"No conversion from column \" + schema.getColumn(index)\n");
+        out.append("                    + \" to \" + type.getSimpleName() + \" in ").append(mapperName).append("\");\n");
+        out.append("        }\n");
+        out.append("        return converter;\n");
+        out.append("    }\n\n");
+        out.append("    private static Object convert(").append(CONVERTER).append(" converter, ").append(ROW)
+                .append(" row, int index, String column) {\n");
+        out.append("        Object value = row.get(index);\n");
+        out.append("        try {\n");
+        out.append("            return converter.apply(value);\n");
+        out.append("        } catch (RuntimeException e) {\n");
+        out.append("            throw new IllegalArgumentException(\"Cannot convert column \" + column + \" value '\" + value + \"'\", e);\n");
+        out.append("        }\n");
+        out.append("    }\n");
+        out.append("}\n");
+
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedMapperName, dto).openWriter()) {
+            writer.write(out.toString());
+        }
+    }
+
+    /**
+     * Appends the statements populating one object from the row.
+     * @param type The class whose fields are mapped.
+     * @param target The local variable holding the instance.
+     * @param baseIndent The indentation of the statements.
+     */
+    private void writeFields(Plan plan, TypeElement type, String target, String baseIndent, StringBuilder body) {
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            Set<Modifier> modifiers = field.getModifiers();
+            Column column = field.getAnnotation(Column.class);
+            if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)
+                    || (column != null && column.ignore())) {
+                continue;
+            }
+            String fieldName = field.getSimpleName().toString();
+            String setter = "set" + capitalize(fieldName);
+            requireSetter(type, field, setter);
+
+            String indent = baseIndent;
+            IncludeIf includeIf = field.getAnnotation(IncludeIf.class);
+            if (includeIf != null) {
+                String condition = "matches(row, " + plan.index(includeIf.column()) + ", " + literal(includeIf.equalsIgnoreCase()) + ")";
+                body.append(indent).append("if (").append(plan.condition(condition)).append(") {\n");
+                indent += "    ";
+            }
+
+            if (field.getAnnotation(Nested.class) != null) {
+                TypeElement nestedType = nestedType(field);
+                String nestedName = nestedType.getQualifiedName().toString();
+                String local = plan.local(fieldName);
+                body.append(indent).append(nestedName).append(' ').append(local).append(" = new ").append(nestedName).append("();\n");
+                writeFields(plan, nestedType, local, indent, body);
+                body.append(indent).append(target).append('.').append(setter).append('(').append(local).append(");\n");
+            } else {
+                String columnName = column != null && !column.value().isEmpty() ? column.value() : toSnakeCase(fieldName);
+                String index = plan.index(columnName);
+                body.append(indent).append("if (present(row, ").append(index).append(")) {\n");
+                writeValue(plan, field, target + "." + setter, index, columnName, indent + "    ", body);
+                body.append(indent).append("}\n");
+            }
+
+            if (includeIf != null) {
+                body.append(baseIndent).append("}\n");
+            }
+        }
+    }
+
+    /**
+     * Appends the statements setting one field from a present column. Integral and floating-point columns reach
+     * primitive fields from the row's primitive slot; any other value goes through the converter the run's
+     * registry resolves for the column and the field type, like a compiled mapping plan does.
+     */
+    private void writeValue(Plan plan, VariableElement field, String setterCall, String index, String column,
+                            String indent, StringBuilder body) {
+        TypeMirror type = field.asType();
+        Split split = field.getAnnotation(Split.class);
+        if (split != null) {
+            if (!isStringList(type)) {
+                throw new MappingException(field, "@Split needs a List<String> field.");
+            }
+            String pattern = plan.constant("java.util.regex.Pattern", toConstantName(field.getSimpleName().toString()) + "_SPLIT",
+                    "java.util.regex.Pattern.compile(" + literal(split.value()) + ", java.util.regex.Pattern.LITERAL)");
+            body.append(indent).append("String text = row.get(").append(index).append(").toString();\n");
+            body.append(indent).append("if (!text.isEmpty()) {\n");
+            body.append(indent).append("    ").append(setterCall).append("(java.util.Arrays.asList(")
+                    .append(pattern).append(".split(text)));\n");
+            body.append(indent).append("}\n");
+            return;
+        }
+
+        String fieldName = field.getSimpleName().toString();
+        TypeMirror erasure = processingEnv.getTypeUtils().erasure(type.getKind().isPrimitive()
+                ? processingEnv.getTypeUtils().boxedClass((javax.lang.model.type.PrimitiveType) type).asType() : type);
+        String converter = plan.converter(fieldName, index, erasure.toString());
+
+        String valueIndent = indent;
+        String primitive = type.getKind().isPrimitive() ? primitiveRead(type.getKind(), index) : null;
+        if (primitive != null) {
+            String check = type.getKind() == TypeKind.LONG || type.getKind() == TypeKind.INT ? "isIntegral" : "isNumeric";
+            body.append(indent).append("if (").append(plan.unboxed(fieldName, index, check)).append(") {\n");
+            body.append(indent).append("    ").append(setterCall).append('(').append(primitive).append(");\n");
+            body.append(indent).append("} else {\n");
+            valueIndent += "    ";
+        }
+        body.append(valueIndent).append("Object value = convert(").append(converter).append(", row, ").append(index)
+                .append(", ").append(literal(column)).append(");\n");
+        body.append(valueIndent).append("if (value != null) {\n");
+        body.append(valueIndent).append("    ").append(setterCall).append("((").append(erasure).append(") value);\n");
+        body.append(valueIndent).append("}\n");
+        if (primitive != null) {
+            body.append(indent).append("}\n");
+        }
+    }
+
+    /**
+     * @return The expression reading a primitive long, int, double or float field from the row's primitive slot,
+     *         or null for other types; the same fields a compiled mapping plan passes without boxing.
+     */
+    private static String primitiveRead(TypeKind kind, String index) {
+        switch (kind) {
+            case LONG:
+                return "row.getLong(" + index + ")";
+            case INT:
+                return "(int) row.getLong(" + index + ")";
+            case DOUBLE:
+                return "row.getDouble(" + index + ")";
+            case FLOAT:
+                return "(float) row.getDouble(" + index + ")";
+            default:
+                return null;
+        }
+    }
+
+    private TypeElement nestedType(VariableElement field) {
+        if (field.asType().getKind() != TypeKind.DECLARED) {
+            throw new MappingException(field, "@Nested needs a class-typed field.");
+        }
+        TypeElement nested = (TypeElement) ((DeclaredType) field.asType()).asElement();
+        if (nested.getKind() != ElementKind.CLASS || nested.getModifiers().contains(Modifier.ABSTRACT)
+                || (nested.getNestingKind() == NestingKind.MEMBER && !nested.getModifiers().contains(Modifier.STATIC))) {
+            throw new MappingException(field, "@Nested needs a concrete top-level or static nested class.");
+        }
+        requireNoArgConstructor(nested, field);
+        return nested;
+    }
+
+    private void requireSetter(TypeElement type, VariableElement field, String setter) {
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+            if (method.getSimpleName().contentEquals(setter) && method.getParameters().size() == 1
+                    && !method.getModifiers().contains(Modifier.PRIVATE) && !method.getModifiers().contains(Modifier.STATIC)
+                    && processingEnv.getTypeUtils().isSameType(method.getParameters().get(0).asType(), field.asType())) {
+                return;
+            }
+        }
+        throw new MappingException(field, "No non-private setter " + setter + "(" + field.asType() + ") in " + type.getSimpleName() + ".");
+    }
+
+    private static void requireNoArgConstructor(TypeElement type, Element reported) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                return;
+            }
+        }
+        throw new MappingException(reported, type.getSimpleName() + " needs a non-private no-arg constructor.");
+    }
+
+    private boolean isStringList(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return false;
+        }
+        DeclaredType declared = (DeclaredType) type;
+        return ((TypeElement) declared.asElement()).getQualifiedName().contentEquals("java.util.List")
+                && declared.getTypeArguments().size() == 1
+                && isType(declared.getTypeArguments().get(0), "java.lang.String");
+    }
+
+    private static boolean isType(TypeMirror type, String qualifiedName) {
+        return type.getKind() == TypeKind.DECLARED
+                && ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().contentEquals(qualifiedName);
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private static String capitalize(String str) {
+        return str.substring(0, 1).toUpperCase() + str.substring(1);
+    }
+
+    private static String toSnakeCase(String camelCase) {
+        StringBuilder snakeCase = new StringBuilder();
+        for (char c : camelCase.toCharArray()) {
+            if (Character.isUpperCase(c)) {
+                snakeCase.append('_').append(Character.toLowerCase(c));
+            } else {
+                snakeCase.append(c);
+            }
+        }
+        return snakeCase.toString();
+    }
+
+    private static String toConstantName(String camelCase) {
+        return toSnakeCase(camelCase).toUpperCase();
+    }
+
+    private static String literal(String value) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"':
+                    literal.append("\\\"");
+                    break;
+                case '\\':
+                    literal.append("\\\\");
+                    break;
+                case '\n':
+                    literal.append("\\n");
+                    break;
+                case '\r':
+                    literal.append("\\r");
+                    break;
+                case '\t':
+                    literal.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        literal.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        literal.append(c);
+                    }
+            }
+        }
+        return literal.append('"').toString();
+    }
+
+    /**
+     * Names and declarations collected while writing the mapping statements of one DTO.
+     */
+    private static final class Plan {
+        /** Lower-case column name to the field holding its index. */
+        private final Map<String, String> indexes = new LinkedHashMap<>();
+        /** Condition expression to the local holding its result. */
+        private final Map<String, String> conditions = new LinkedHashMap<>();
+        private final List<String> constants = new ArrayList<>();
+        private final Set<String> constantNames = new HashSet<>();
+        /** Converter field, index field and target class of every converted field. */
+        private final List<String[]> converters = new ArrayList<>();
+        /** Flag field, index field and RowSchema check of every primitive field. */
+        private final List<String[]> unboxed = new ArrayList<>();
+        private final Set<String> memberNames = new HashSet<>();
+        private final Set<String> locals = new HashSet<>();
+
+        String index(String column) {
+            String lowerCase = column.toLowerCase();
+            return indexes.computeIfAbsent(lowerCase, key -> {
+                String name = uncapitalize(toCamelCase(key)) + "Index";
+                while (indexes.containsValue(name)) {
+                    name = "_" + name;
+                }
+                return name;
+            });
+        }
+
+        String condition(String expression) {
+            return conditions.computeIfAbsent(expression, key -> "include" + conditions.size());
+        }
+
+        String constant(String type, String name, String initializer) {
+            String unique = name;
+            for (int i = 2; !constantNames.add(unique); i++) {
+                unique = name + i;
+            }
+            constants.add(type + " " + unique + " = " + initializer);
+            return unique;
+        }
+
+        String converter(String fieldName, String index, String type) {
+            String name = member(fieldName + "Converter");
+            converters.add(new String[] {name, index, type});
+            return name;
+        }
+
+        String unboxed(String fieldName, String index, String check) {
+            String name = member(fieldName + "Unboxed");
+            unboxed.add(new String[] {name, index, check});
+            return name;
+        }
+
+        private String member(String name) {
+            String unique = name;
+            for (int i = 2; !memberNames.add(unique) || indexes.containsValue(unique); i++) {
+                unique = name + i;
+            }
+            return unique;
+        }
+
+        String local(String name) {
+            String unique = name;
+            for (int i = 2; !locals.add(unique); i++) {
+                unique = name + i;
+            }
+            return unique;
+        }
+
+        private static String toCamelCase(String snakeCase) {
+            StringBuilder camelCase = new StringBuilder();
+            boolean upper = false;
+            for (char c : snakeCase.toCharArray()) {
+                if (c == '_' || !Character.isJavaIdentifierPart(c)) {
+                    upper = camelCase.length() > 0;
+                } else {
+                    camelCase.append(upper ? Character.toUpperCase(c) : c);
+                    upper = false;
+                }
+            }
+            return camelCase.length() > 0 ? camelCase.toString() : "column";
+        }
+
+        private static String uncapitalize(String str) {
+            return str.substring(0, 1).toLowerCase() + str.substring(1);
+        }
+    }
+
+    /**
+     * A mapping the processor cannot generate, reported on the element that causes it.
+     */
+    private static final class MappingException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Element element;
+
+        MappingException(Element element, String message) {
+            super(message);
+            this.element = element;
+        }
+    }
+}
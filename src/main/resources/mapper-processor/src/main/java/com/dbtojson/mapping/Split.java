@@ -0,0 +1,22 @@
+package com.dbtojson.mapping;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Maps a text column holding delimited values to a {@code List<String>} field.
+ * An empty value leaves the field unset.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.FIELD)
+public @interface Split {
+
+    /**
+     * @return The literal delimiter.
+     */
+    String value() default ",";
+}